@@ -0,0 +1,178 @@
+package net.froihofer.dsfinance.bank.client.gui;
+
+import net.froihofer.dsfinance.bank.api.EmployeeBankService;
+import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.dto.CustomerPageDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Customer table that fetches the results of a name search page by page.
+ * The first page is loaded by {@link #search}; further pages are loaded by {@link #loadMore()},
+ * which the table calls when it is scrolled near the last loaded row.
+ * Only one page request is in flight at a time; results of an outdated search are dropped.
+ */
+public class CustomerPageTableModel extends AbstractTableModel {
+    private static final Logger log = LoggerFactory.getLogger(CustomerPageTableModel.class);
+
+    private static final String[] COLUMNS = {"ID", "Customer Number", "First Name", "Last Name", "Address", "Username"};
+
+    private static final int PAGE_SIZE = 100;
+
+    private final EmployeeBankService service;
+    private final List<CustomerDTO> rows = new ArrayList<>();
+
+    private String firstName;
+    private String lastName;
+    private Long nextAfterId;
+    private Long totalCount;
+    private boolean loading;
+    // Incremented by every new search, so late pages of an older search are ignored
+    private int generation;
+
+    private Runnable statusListener = () -> { };
+    private Consumer<Exception> errorListener = e -> { };
+
+    public CustomerPageTableModel(EmployeeBankService service) {
+        this.service = service;
+    }
+
+    /**
+     * Called on the event dispatch thread whenever rows or the total count change.
+     */
+    public void setStatusListener(Runnable statusListener) {
+        this.statusListener = statusListener;
+    }
+
+    /**
+     * Called on the event dispatch thread when a page could not be loaded.
+     */
+    public void setErrorListener(Consumer<Exception> errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /**
+     * Starts a new name search and loads its first page (with the total count).
+     */
+    public void search(String firstName, String lastName) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        reset();
+        fetch(null, true);
+    }
+
+    /**
+     * Shows a single customer (e.g. found by id), without further pages.
+     */
+    public void show(CustomerDTO customer) {
+        reset();
+        rows.add(customer);
+        totalCount = 1L;
+        fireTableDataChanged();
+        statusListener.run();
+    }
+
+    /**
+     * Loads the next page of the current search, if there is one and none is loading.
+     */
+    public void loadMore() {
+        if (nextAfterId != null && !loading) {
+            fetch(nextAfterId, false);
+        }
+    }
+
+    /**
+     * Number of loaded rows.
+     */
+    public int getLoadedCount() {
+        return rows.size();
+    }
+
+    /**
+     * Number of all matching customers, null if unknown.
+     */
+    public Long getTotalCount() {
+        return totalCount;
+    }
+
+    public CustomerDTO getCustomerAt(int row) {
+        return rows.get(row);
+    }
+
+    private void reset() {
+        generation++;
+        rows.clear();
+        nextAfterId = null;
+        totalCount = null;
+        loading = false;
+        fireTableDataChanged();
+    }
+
+    private void fetch(Long afterId, boolean withTotalCount) {
+        loading = true;
+        int requested = generation;
+        String first = firstName;
+        String last = lastName;
+
+        SwingWorker<CustomerPageDTO, Void> worker = new SwingWorker<>() {
+            @Override
+            protected CustomerPageDTO doInBackground() throws Exception {
+                return service.findCustomersByNamePage(first, last, afterId, PAGE_SIZE, withTotalCount);
+            }
+
+            @Override
+            protected void done() {
+                if (requested != generation) return;
+                loading = false;
+                try {
+                    CustomerPageDTO page = get();
+                    int firstRow = rows.size();
+                    if (page.getCustomers() != null) rows.addAll(page.getCustomers());
+                    nextAfterId = page.getNextAfterId();
+                    if (page.getTotalCount() != null) totalCount = page.getTotalCount();
+                    if (rows.size() > firstRow) fireTableRowsInserted(firstRow, rows.size() - 1);
+                    statusListener.run();
+                } catch (Exception e) {
+                    log.error("Failed to load customers", e);
+                    errorListener.accept(e);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        CustomerDTO customer = rows.get(row);
+        switch (column) {
+            case 0: return customer.getCustomerId();
+            case 1: return customer.getCustomerNumber();
+            case 2: return customer.getFirstName();
+            case 3: return customer.getLastName();
+            case 4: return customer.getAddress();
+            case 5: return customer.getUsername();
+            default: return null;
+        }
+    }
+}
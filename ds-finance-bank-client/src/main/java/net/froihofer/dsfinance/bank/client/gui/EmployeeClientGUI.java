@@ -35,7 +35,8 @@ public class EmployeeClientGUI extends JFrame {
     private JPasswordField txtInitialPassword;
     private JTextField txtSearchFirstName, txtSearchLastName, txtSearchById;
     private JTable customerTable;
-    private DefaultTableModel customerTableModel;
+    private CustomerPageTableModel customerTableModel;
+    private JScrollPane customerScrollPane;
 
     // Trading Tab
     private JTextField txtTradeCustomerId, txtTradeSymbol, txtTradeQuantity;
@@ -155,19 +156,25 @@ public class EmployeeClientGUI extends JFrame {
         panel.add(searchPanel, BorderLayout.CENTER);
 
         // Bottom: Results Table
-        String[] columns = {"ID", "Customer Number", "First Name", "Last Name", "Address", "Username"};
-        customerTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Results are fetched page by page while scrolling
+        customerTableModel = new CustomerPageTableModel(employeeService);
         customerTable = new JTable(customerTableModel);
         customerTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
-        JScrollPane scrollPane = new JScrollPane(customerTable);
-        scrollPane.setBorder(BorderFactory.createTitledBorder("Customer List"));
-        panel.add(scrollPane, BorderLayout.SOUTH);
+        customerScrollPane = new JScrollPane(customerTable);
+        customerScrollPane.setBorder(BorderFactory.createTitledBorder("Customer List"));
+        customerScrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            BoundedRangeModel m = customerScrollPane.getVerticalScrollBar().getModel();
+            // Load the next page when less than one screen of rows is left below the view
+            if (m.getValue() + 2 * m.getExtent() >= m.getMaximum()) {
+                customerTableModel.loadMore();
+            }
+        });
+        customerTableModel.setStatusListener(this::updateCustomerListTitle);
+        customerTableModel.setErrorListener(e -> JOptionPane.showMessageDialog(EmployeeClientGUI.this,
+                "Error: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()),
+                "Error", JOptionPane.ERROR_MESSAGE));
+        panel.add(customerScrollPane, BorderLayout.SOUTH);
 
         return panel;
     }
@@ -245,32 +252,28 @@ public class EmployeeClientGUI extends JFrame {
     }
 
     private void searchCustomersByName() {
-        SwingWorker<List<CustomerDTO>, Void> worker = new SwingWorker<>() {
-            @Override
-            protected List<CustomerDTO> doInBackground() throws Exception {
-                String firstName = txtSearchFirstName.getText().trim();
-                String lastName = txtSearchLastName.getText().trim();
+        String firstName = txtSearchFirstName.getText().trim();
+        String lastName = txtSearchLastName.getText().trim();
 
-                if (firstName.isEmpty()) firstName = null;
-                if (lastName.isEmpty()) lastName = null;
+        if (firstName.isEmpty()) firstName = null;
+        if (lastName.isEmpty()) lastName = null;
 
-                return employeeService.findCustomersByName(firstName, lastName);
-            }
+        customerTableModel.search(firstName, lastName);
+    }
 
-            @Override
-            protected void done() {
-                try {
-                    List<CustomerDTO> customers = get();
-                    displayCustomers(customers);
-                } catch (Exception e) {
-                    log.error("Failed to search customers", e);
-                    JOptionPane.showMessageDialog(EmployeeClientGUI.this,
-                            "Error: " + e.getMessage(),
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                }
+    private void updateCustomerListTitle() {
+        Long total = customerTableModel.getTotalCount();
+        String title = "Customer List (" + customerTableModel.getLoadedCount()
+                + (total != null ? " of " + total : "") + ")";
+        customerScrollPane.setBorder(BorderFactory.createTitledBorder(title));
+
+        // Fill the view if the first page does not reach the end of it
+        SwingUtilities.invokeLater(() -> {
+            BoundedRangeModel m = customerScrollPane.getVerticalScrollBar().getModel();
+            if (m.getValue() + 2 * m.getExtent() >= m.getMaximum()) {
+                customerTableModel.loadMore();
             }
-        };
-        worker.execute();
+        });
     }
 
     private void searchCustomerById() {
@@ -286,15 +289,7 @@ public class EmployeeClientGUI extends JFrame {
                 try {
                     CustomerDTO customer = get();
                     if (customer != null) {
-                        customerTableModel.setRowCount(0);
-                        customerTableModel.addRow(new Object[]{
-                                customer.getCustomerId(),
-                                customer.getCustomerNumber(),
-                                customer.getFirstName(),
-                                customer.getLastName(),
-                                customer.getAddress(),
-                                customer.getUsername()
-                        });
+                        customerTableModel.show(customer);
                     } else {
                         JOptionPane.showMessageDialog(EmployeeClientGUI.this,
                                 "Customer not found",
@@ -330,15 +325,7 @@ public class EmployeeClientGUI extends JFrame {
                 try {
                     CustomerDTO customer = get();
                     if (customer != null) {
-                        customerTableModel.setRowCount(0);
-                        customerTableModel.addRow(new Object[]{
-                                customer.getCustomerId(),
-                                customer.getCustomerNumber(),
-                                customer.getFirstName(),
-                                customer.getLastName(),
-                                customer.getAddress(),
-                                customer.getUsername()
-                        });
+                        customerTableModel.show(customer);
                     } else {
                         JOptionPane.showMessageDialog(EmployeeClientGUI.this,
                                 "Customer not found with number: " + customerNumber,
@@ -355,20 +342,6 @@ public class EmployeeClientGUI extends JFrame {
         worker.execute();
     }
 
-    private void displayCustomers(List<CustomerDTO> customers) {
-        customerTableModel.setRowCount(0);
-        for (CustomerDTO customer : customers) {
-            customerTableModel.addRow(new Object[]{
-                    customer.getCustomerId(),
-                    customer.getCustomerNumber(),
-                    customer.getFirstName(),
-                    customer.getLastName(),
-                    customer.getAddress(),
-                    customer.getUsername()
-            });
-        }
-    }
-
     // ==================== TRADING TAB ====================
     private JPanel createTradingPanel() {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
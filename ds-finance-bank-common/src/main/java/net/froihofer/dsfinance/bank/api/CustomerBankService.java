@@ -2,8 +2,10 @@ package net.froihofer.dsfinance.bank.api;
 
 import jakarta.ejb.Remote;
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 import net.froihofer.dsfinance.bank.dto.PortfolioDTO;
+import net.froihofer.dsfinance.bank.dto.QuoteHistoryInterval;
 import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
 
 @Remote
@@ -11,6 +13,16 @@ public interface CustomerBankService {
 
   List<StockQuoteDTO> findStockQuotesByCompanyName(String companyNameQuery);
 
+  /**
+   * Quote history of a stock, oldest first.
+   * @param symbol Stock symbol
+   * @param from Start of the range, null for unbounded
+   * @param to End of the range (exclusive), null for unbounded
+   * @param interval Downsampling bucket size, null or RAW for every point
+   * @return Quotes with lastTradeTime set
+   */
+  List<StockQuoteDTO> getStockQuoteHistory(String symbol, Date from, Date to, QuoteHistoryInterval interval);
+
   String whoAmI();
 
   // Customer operations (NO customer ID parameter)
@@ -2,6 +2,7 @@ package net.froihofer.dsfinance.bank.api;
 
 import jakarta.ejb.Local;
 import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.dto.CustomerPageDTO;
 
 import java.util.List;
 
@@ -42,12 +43,25 @@ public interface CustomerServiceLocal {
     CustomerDTO findByUsername(String username);
     
     /**
-     * Searches customers by name (partial match).
-     * @param firstName First name (can be partial)
-     * @param lastName Last name (can be partial)
-     * @return List of matching customers
+     * Searches customers by name. Every word of a search term must be the beginning of a word
+     * of the name, ignoring case and accents ("ann" matches "Anna-Lena", so does "lena").
+     * @param firstName First name (can be partial, blank matches all)
+     * @param lastName Last name (can be partial, blank matches all)
+     * @return List of matching customers, ordered by last and first name
      */
     List<CustomerDTO> searchByName(String firstName, String lastName);
+
+    /**
+     * Searches customers by name like {@link #searchByName}, one page at a time, ordered by id.
+     * @param firstName First name (can be partial, blank matches all)
+     * @param lastName Last name (can be partial, blank matches all)
+     * @param afterId nextAfterId of the previous page, null for the first page
+     * @param pageSize Customers per page, at most customer.search.maxPageSize
+     * @param withTotalCount Whether to count all matching customers
+     * @return Page of matching customers
+     */
+    CustomerPageDTO searchByNamePage(String firstName, String lastName, Long afterId, int pageSize,
+                                     boolean withTotalCount);
     
     /**
      * Updates an existing customer.
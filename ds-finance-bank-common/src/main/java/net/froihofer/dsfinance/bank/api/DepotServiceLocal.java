@@ -44,6 +44,16 @@ public interface DepotServiceLocal {
      */
     void removeStockPosition(long customerId, String stockSymbol, int quantity);
     
+    /**
+     * Gets the number of shares of one stock held by a customer.
+     * Answered by a single query, without pricing any position.
+     * 
+     * @param customerId Customer ID
+     * @param stockSymbol Stock symbol
+     * @return Quantity held, 0 if the customer holds none
+     */
+    int getHeldQuantity(long customerId, String stockSymbol);
+    
     /**
      * Gets all positions in a customer's depot.
      * @param customerId Customer ID
@@ -2,9 +2,12 @@ package net.froihofer.dsfinance.bank.api;
 
 import jakarta.ejb.Remote;
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.dto.CustomerPageDTO;
 import net.froihofer.dsfinance.bank.dto.PortfolioDTO;
+import net.froihofer.dsfinance.bank.dto.QuoteHistoryInterval;
 import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
 
 @Remote
@@ -23,10 +26,31 @@ public interface EmployeeBankService {
 
   List<CustomerDTO> findCustomersByName(String firstName, String lastName);
 
+  /**
+   * One page of the customers matching the name search, ordered by id.
+   * @param firstName First name (can be partial, blank matches all)
+   * @param lastName Last name (can be partial, blank matches all)
+   * @param afterId nextAfterId of the previous page, null for the first page
+   * @param pageSize Customers per page; capped by the server (customer.search.maxPageSize)
+   * @param withTotalCount Whether to count all matching customers (costs an extra query)
+   */
+  CustomerPageDTO findCustomersByNamePage(String firstName, String lastName, Long afterId, int pageSize,
+                                          boolean withTotalCount);
+
   List<StockQuoteDTO> findStockQuotesByCompanyName(String companyNameQuery);
 
   StockQuoteDTO findStockQuoteBySymbol(String symbol);
 
+  /**
+   * Quote history of a stock, oldest first.
+   * @param symbol Stock symbol
+   * @param from Start of the range, null for unbounded
+   * @param to End of the range (exclusive), null for unbounded
+   * @param interval Downsampling bucket size, null or RAW for every point
+   * @return Quotes with lastTradeTime set
+   */
+  List<StockQuoteDTO> getStockQuoteHistory(String symbol, Date from, Date to, QuoteHistoryInterval interval);
+
   // Trading operations
   BigDecimal buyStockForCustomer(long customerId, String symbol, int quantity);
 
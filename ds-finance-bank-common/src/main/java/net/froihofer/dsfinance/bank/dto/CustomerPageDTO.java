@@ -0,0 +1,56 @@
+package net.froihofer.dsfinance.bank.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a customer search, ordered by customer id.
+ * The next page is requested with {@link #getNextAfterId()} as {@code afterId}.
+ */
+public class CustomerPageDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<CustomerDTO> customers;
+    // Id of the last customer of this page, null if there are no further pages
+    private Long nextAfterId;
+    // Number of all matching customers, null if not requested
+    private Long totalCount;
+
+    public CustomerPageDTO() {
+    }
+
+    public CustomerPageDTO(List<CustomerDTO> customers, Long nextAfterId, Long totalCount) {
+        this.customers = customers;
+        this.nextAfterId = nextAfterId;
+        this.totalCount = totalCount;
+    }
+
+    public boolean hasNextPage() {
+        return nextAfterId != null;
+    }
+
+    // Getters and Setters
+    public List<CustomerDTO> getCustomers() {
+        return customers;
+    }
+
+    public void setCustomers(List<CustomerDTO> customers) {
+        this.customers = customers;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    public Long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Long totalCount) {
+        this.totalCount = totalCount;
+    }
+}
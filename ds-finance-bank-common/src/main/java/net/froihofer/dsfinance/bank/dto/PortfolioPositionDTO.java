@@ -12,10 +12,22 @@ public class PortfolioPositionDTO implements Serializable {
     private BigDecimal totalValue;           // Current market value (quantity * currentPrice)
     private BigDecimal purchaseValue;        // Original purchase value (quantity * averagePurchasePrice)
     private BigDecimal profitLoss;           // Profit or loss (totalValue - purchaseValue)
+    private boolean priceStale;              // currentPrice is not a fresh quote (last known price or 0)
 
     public PortfolioPositionDTO() {
     }
 
+    /**
+     * Position as stored, before it is priced. Used by the portfolio query.
+     */
+    public PortfolioPositionDTO(String symbol, String companyName, Integer quantity,
+                                BigDecimal averagePurchasePrice) {
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.quantity = quantity;
+        this.averagePurchasePrice = averagePurchasePrice;
+    }
+
     public PortfolioPositionDTO(String symbol, String companyName, Integer quantity,
                                 BigDecimal averagePurchasePrice, BigDecimal currentPrice,
                                 BigDecimal totalValue) {
@@ -132,6 +144,14 @@ public class PortfolioPositionDTO implements Serializable {
         this.profitLoss = profitLoss;
     }
 
+    public boolean isPriceStale() {
+        return priceStale;
+    }
+
+    public void setPriceStale(boolean priceStale) {
+        this.priceStale = priceStale;
+    }
+
     @Override
     public String toString() {
         return "PortfolioPositionDTO{" +
@@ -143,6 +163,7 @@ public class PortfolioPositionDTO implements Serializable {
                 ", totalValue=" + totalValue +
                 ", purchaseValue=" + purchaseValue +
                 ", profitLoss=" + profitLoss +
+                ", priceStale=" + priceStale +
                 '}';
     }
 }
@@ -0,0 +1,12 @@
+package net.froihofer.dsfinance.bank.dto;
+
+/**
+ * Bucket size for downsampled quote histories.
+ * Each bucket is represented by its last quote (closing price).
+ */
+public enum QuoteHistoryInterval {
+  /** Every stored point, no downsampling. */
+  RAW,
+  HOURLY,
+  DAILY
+}
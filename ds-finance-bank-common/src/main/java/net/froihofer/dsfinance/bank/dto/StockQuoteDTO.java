@@ -2,6 +2,7 @@ package net.froihofer.dsfinance.bank.dto;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.Date;
 
 public class StockQuoteDTO implements Serializable {
   private String symbol;
@@ -9,6 +10,8 @@ public class StockQuoteDTO implements Serializable {
   private BigDecimal lastTradePrice;
   private BigDecimal change;
   private String exchange;
+  private Date lastTradeTime;
+  private Long marketCapitalization;
 
   public StockQuoteDTO() {
   }
@@ -69,6 +72,22 @@ public class StockQuoteDTO implements Serializable {
     this.exchange = exchange;
   }
 
+  public Date getLastTradeTime() {
+    return lastTradeTime;
+  }
+
+  public void setLastTradeTime(Date lastTradeTime) {
+    this.lastTradeTime = lastTradeTime;
+  }
+
+  public Long getMarketCapitalization() {
+    return marketCapitalization;
+  }
+
+  public void setMarketCapitalization(Long marketCapitalization) {
+    this.marketCapitalization = marketCapitalization;
+  }
+
   @Override
   public String toString() {
     return "StockQuoteDTO{" +
@@ -77,6 +96,8 @@ public class StockQuoteDTO implements Serializable {
             ", lastTradePrice=" + lastTradePrice +
             ", change=" + change +
             ", exchange='" + exchange + '\'' +
+            ", lastTradeTime=" + lastTradeTime +
+            ", marketCapitalization=" + marketCapitalization +
             '}';
   }
 }
@@ -0,0 +1,61 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.List;
+import net.froihofer.dsfinance.bank.entity.BankEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the bank row once at deployment and remembers its id,
+ * so other beans load it by primary key instead of querying for it.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrationBean")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BankInitializerBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BankInitializerBean.class);
+
+    private static final BigDecimal INITIAL_VOLUME = new BigDecimal("1000000000");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private volatile long bankId;
+
+    @PostConstruct
+    void init() {
+        List<BankEntity> banks = em.createQuery("SELECT b FROM BankEntity b ORDER BY b.id", BankEntity.class)
+                .setMaxResults(1)
+                .getResultList();
+        BankEntity bank;
+        if (banks.isEmpty()) {
+            bank = new BankEntity();
+            bank.setTotalInvestableVolume(INITIAL_VOLUME);
+            bank.setAvailableVolume(INITIAL_VOLUME);
+            em.persist(bank);
+            em.flush();
+            LOG.info("Bank created with investable volume {}", INITIAL_VOLUME);
+        } else {
+            bank = banks.get(0);
+        }
+        bankId = bank.getId();
+    }
+
+    /**
+     * Primary key of the bank row.
+     */
+    public long getBankId() {
+        return bankId;
+    }
+}
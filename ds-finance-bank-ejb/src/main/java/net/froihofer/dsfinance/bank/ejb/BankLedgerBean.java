@@ -0,0 +1,100 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.List;
+import net.froihofer.dsfinance.bank.entity.BankEntity;
+import net.froihofer.dsfinance.bank.entity.BankVolumeJournalEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persisted bank investable volume.
+ *
+ * Trades reserve volume in memory ({@link BankVolumeEngineBean}); every settled change is appended
+ * to the BANK_VOLUME_JOURNAL in its own transaction (inserts only, so trades never contend on a row)
+ * and folded into the BANK row by the engine's flush timer, the only writer of its volume.
+ * A debit larger than the volume is still booked and leaves a negative balance: the trades behind it
+ * are already executed at the exchange. The available volume of the bank is the volume of the
+ * BANK row plus the journal entries not folded in yet.
+ */
+@Stateless
+@RolesAllowed("employee")
+public class BankLedgerBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BankLedgerBean.class);
+
+    // Journal entries folded into the bank row per transaction
+    static final int JOURNAL_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @EJB
+    private BankInitializerBean bankInitializer;
+
+    /**
+     * Records a settled change of the bank volume (positive = credit). Commits on its own,
+     * independent of the caller's transaction, so the change is durable once this returns.
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void journal(BigDecimal delta) {
+        if (delta == null || delta.signum() == 0) return;
+        em.persist(new BankVolumeJournalEntity(delta));
+    }
+
+    /**
+     * Books the oldest journal entries (at most {@value #JOURNAL_CHUNK_SIZE}) into the bank row and
+     * deletes them, in one transaction.
+     *
+     * @return Number of entries booked
+     */
+    public int foldJournal() {
+        List<BankVolumeJournalEntity> entries = em.createNamedQuery(
+                        "BankVolumeJournal.findAll", BankVolumeJournalEntity.class)
+                .setMaxResults(JOURNAL_CHUNK_SIZE)
+                .getResultList();
+        if (entries.isEmpty()) return 0;
+
+        BigDecimal delta = BigDecimal.ZERO;
+        for (BankVolumeJournalEntity entry : entries) {
+            delta = delta.add(entry.getAmount());
+            em.remove(entry);
+        }
+
+        BankEntity bank = getBankEntity();
+        if (delta.signum() > 0) {
+            bank.increaseVolume(delta);
+        } else if (delta.signum() < 0) {
+            // The trades behind the journal are executed: book them even below zero
+            bank.overdraw(delta.negate());
+            if (bank.getAvailableVolume().signum() < 0) {
+                LOG.warn("Bank volume overdrawn: {}", bank.getAvailableVolume());
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * Available investable volume of the bank (bank row plus the journal entries not folded in yet).
+     * Negative if executed trades have overdrawn it.
+     */
+    public BigDecimal getAvailableVolume() {
+        BigDecimal available = getBankEntity().getAvailableVolume();
+        if (available == null) available = BigDecimal.ZERO;
+
+        BigDecimal journal = em.createNamedQuery("BankVolumeJournal.sumAmount", BigDecimal.class)
+                .getSingleResult();
+        return (journal == null) ? available : available.add(journal);
+    }
+
+    private BankEntity getBankEntity() {
+        return em.find(BankEntity.class, bankInitializer.getBankId());
+    }
+}
@@ -0,0 +1,231 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.annotation.security.RunAs;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory bank volume with write-behind persistence.
+ *
+ * The available volume is held as a CAS-updated {@code long} in cents, so the pre-trade volume
+ * check and reservation of a buy order need no database access. Reservations live in memory only;
+ * every settled change (the cost of an executed buy, the revenue of a sell) is appended to the
+ * {@link BankLedgerBean} journal before the call returns, an insert that never contends with other
+ * trades. The journal is folded into the bank row every {@code trading.volume.flushIntervalMs}
+ * milliseconds (default 1000) and on undeployment. At startup the volume is recovered from the
+ * bank row plus the journal, so no settled change is lost in a crash, and neither
+ * {@code getInvestableVolume} nor trades touch the bank row.
+ *
+ * If a journal write fails, the change is kept in memory and written by the next flush.
+ *
+ * The engine assumes a single server instance owns the bank volume.
+ */
+@Singleton
+@Startup
+@DependsOn("BankInitializerBean")
+@RunAs("employee")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BankVolumeEngineBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BankVolumeEngineBean.class);
+
+    private static final String PROP_FLUSH_INTERVAL_MS = "trading.volume.flushIntervalMs";
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 1_000;
+
+    @EJB
+    private BankLedgerBean ledger;
+
+    @Resource
+    private TimerService timerService;
+
+    private final AtomicLong availableCents = new AtomicLong();
+
+    // Settled changes whose journal write failed (cents, positive = credit)
+    private final AtomicLong pendingCents = new AtomicLong();
+
+    // Metrics
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private volatile long lastFlushAt = -1;
+
+    @PostConstruct
+    void init() {
+        // Recovery: the bank row is the state after the last flush, the journal holds the rest
+        availableCents.set(toCents(ledger.getAvailableVolume()));
+        if (availableCents.get() < 0) {
+            LOG.warn("Bank volume is overdrawn by {}; buy orders are refused until sales cover it",
+                    fromCents(-availableCents.get()));
+        }
+
+        long intervalMs = Math.max(100, longSystemProperty(PROP_FLUSH_INTERVAL_MS, DEFAULT_FLUSH_INTERVAL_MS));
+        timerService.createIntervalTimer(intervalMs, intervalMs, new TimerConfig("bank-volume-flush", false));
+        LOG.info("Bank volume engine started: available={}, flushIntervalMs={}", getAvailableVolume(), intervalMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    /**
+     * Reserves the amount for a buy order.
+     *
+     * @throws IllegalStateException if the available volume is insufficient
+     */
+    public void reserve(BigDecimal amount) {
+        long cents = positiveCents(amount);
+        while (true) {
+            long current = availableCents.get();
+            if (current < cents) {
+                rejections.incrementAndGet();
+                throw new IllegalStateException(
+                    "Insufficient bank volume. Available: " + fromCents(current) + ", Estimated cost: " + amount
+                );
+            }
+            if (availableCents.compareAndSet(current, current - cents)) break;
+        }
+        reservations.incrementAndGet();
+    }
+
+    /**
+     * Replaces a reservation by the actual cost of the executed order and journals the cost.
+     * Never fails: the order is already executed, so a cost above the reservation
+     * is booked even if it exceeds the available volume; the ledger then records a negative balance.
+     */
+    public void commit(BigDecimal reserved, BigDecimal actualCost) {
+        long cost = positiveCents(actualCost);
+        long difference = positiveCents(reserved) - cost;
+
+        long now = availableCents.addAndGet(difference);
+        journal(-cost);
+        if (now < 0) {
+            LOG.warn("Bank volume overdrawn by {} after settling an order", fromCents(-now));
+        }
+    }
+
+    /**
+     * Gives a reservation back, e.g. after the exchange rejected the buy order.
+     */
+    public void release(BigDecimal reserved) {
+        availableCents.addAndGet(positiveCents(reserved));
+    }
+
+    /**
+     * Adds the amount to the available volume and journals it, e.g. the revenue of a sell order.
+     */
+    public void credit(BigDecimal amount) {
+        long cents = positiveCents(amount);
+        availableCents.addAndGet(cents);
+        journal(cents);
+    }
+
+    public BigDecimal getAvailableVolume() {
+        return fromCents(availableCents.get());
+    }
+
+    private void journal(long cents) {
+        try {
+            ledger.journal(fromCents(cents));
+        } catch (RuntimeException e) {
+            // Written by the next flush; lost only if the server stops before that succeeds
+            pendingCents.addAndGet(cents);
+            LOG.warn("Journaling bank volume change {} failed, retrying with the next flush: {}",
+                    fromCents(cents), e.getMessage());
+        }
+    }
+
+    // Each ledger call runs (and commits) in its own transaction, so a failed write is noticed here
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    void flush() {
+        try {
+            long missed = pendingCents.getAndSet(0);
+            if (missed != 0) {
+                try {
+                    ledger.journal(fromCents(missed));
+                } catch (RuntimeException e) {
+                    // Keep the change for the next run
+                    pendingCents.addAndGet(missed);
+                    throw e;
+                }
+            }
+
+            // A failed fold rolls back as a whole; its entries stay in the journal for the next run.
+            // Full chunks mean a backlog (e.g. after a database outage): keep folding.
+            int folded;
+            do {
+                folded = ledger.foldJournal();
+            } while (folded == BankLedgerBean.JOURNAL_CHUNK_SIZE);
+            lastFlushAt = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            flushFailures.incrementAndGet();
+            LOG.warn("Writing bank volume changes failed: {}", e.getMessage());
+        }
+    }
+
+    public long getReservationCount() {
+        return reservations.get();
+    }
+
+    public long getRejectionCount() {
+        return rejections.get();
+    }
+
+    public long getFlushFailureCount() {
+        return flushFailures.get();
+    }
+
+    /** Settled volume change not yet written to the database (journal write failed). */
+    public BigDecimal getPendingDelta() {
+        return fromCents(pendingCents.get());
+    }
+
+    /** Time of the last successful write (epoch millis), -1 if none yet. */
+    public long getLastFlushAt() {
+        return lastFlushAt;
+    }
+
+    private long positiveCents(BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        return toCents(amount);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
+        }
+    }
+}
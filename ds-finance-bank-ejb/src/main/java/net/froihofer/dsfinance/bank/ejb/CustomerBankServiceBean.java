@@ -7,18 +7,20 @@ import jakarta.annotation.security.RunAs;
 import jakarta.ejb.EJB;
 import jakarta.ejb.SessionContext;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 
 import net.froihofer.dsfinance.bank.api.CustomerBankService;
-import net.froihofer.dsfinance.bank.api.CustomerServiceLocal;
 import net.froihofer.dsfinance.bank.api.DepotServiceLocal;
 import net.froihofer.dsfinance.bank.api.EmployeeBankService;
-import net.froihofer.dsfinance.bank.dto.CustomerDTO;
 import net.froihofer.dsfinance.bank.dto.PortfolioDTO;
+import net.froihofer.dsfinance.bank.dto.QuoteHistoryInterval;
 import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
 
 /**
@@ -34,9 +36,6 @@ public class CustomerBankServiceBean implements CustomerBankService {
     @EJB
     private TradingServiceAdapterBean trading;
 
-    @EJB
-    private CustomerServiceLocal customerService;
-
     @EJB
     private DepotServiceLocal depotService;
 
@@ -49,11 +48,22 @@ public class CustomerBankServiceBean implements CustomerBankService {
     @EJB
     private EmployeeBankService employeeService;
 
+    @EJB
+    private QuoteHistoryCacheBean quoteHistoryCache;
+
+    @EJB
+    private CustomerIdentityBean customerIdentity;
+
     @Override
     public List<StockQuoteDTO> findStockQuotesByCompanyName(String companyNameQuery) {
         return trading.findStockQuotesByCompanyName(companyNameQuery);
     }
 
+    @Override
+    public List<StockQuoteDTO> getStockQuoteHistory(String symbol, Date from, Date to, QuoteHistoryInterval interval) {
+        return quoteHistoryCache.getHistory(symbol, from, to, interval);
+    }
+
     @Override
     public String whoAmI() {
         return sessionContext != null && sessionContext.getCallerPrincipal() != null
@@ -61,53 +71,57 @@ public class CustomerBankServiceBean implements CustomerBankService {
                 : "UNKNOWN";
     }
 
+    // No transaction: the order pipeline runs its DB work in short transactions of its own
     @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public BigDecimal buyStock(String symbol, int quantity) {
         String sym = symbol == null ? null : symbol.trim();
         
         // Get authenticated customer
-        CustomerDTO customer = getAuthenticatedCustomer();
+        long customerId = getAuthenticatedCustomerId();
         
         // Customers can only buy for themselves (validation happens here)
-        validateCustomerAccess(customer.getId());
+        validateCustomerAccess(customerId);
         
-        return employeeService.buyStockForCustomer(customer.getId(), sym, quantity);
+        return employeeService.buyStockForCustomer(customerId, sym, quantity);
     }
 
     @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public BigDecimal sellStock(String symbol, int quantity) {
         // Get authenticated customer
-        CustomerDTO customer = getAuthenticatedCustomer();
+        long customerId = getAuthenticatedCustomerId();
         
         // Customers can only sell from their own account
-        validateCustomerAccess(customer.getId());
+        validateCustomerAccess(customerId);
         
-        return employeeService.sellStockForCustomer(customer.getId(), symbol, quantity);
+        return employeeService.sellStockForCustomer(customerId, symbol, quantity);
     }
 
     @Override
     public PortfolioDTO getMyPortfolio() {
         // Get authenticated customer
-        CustomerDTO customer = getAuthenticatedCustomer();
+        long customerId = getAuthenticatedCustomerId();
         
         // Use depot service for portfolio retrieval
-        return depotService.getCustomerPortfolio(customer.getId());
+        return depotService.getCustomerPortfolio(customerId);
     }
 
     /**
-     * Gets the currently authenticated customer from the security context.
-     * @return Customer DTO for the authenticated user
+     * Gets the id of the currently authenticated customer from the security context
+     * (cached per principal by CustomerIdentityBean).
+     * @return Customer ID of the authenticated user
      * @throws IllegalStateException if customer not found
      */
-    private CustomerDTO getAuthenticatedCustomer() {
+    private long getAuthenticatedCustomerId() {
         String username = sessionContext.getCallerPrincipal().getName();
-        CustomerDTO customer = customerService.findByUsername(username);
+        Long customerId = customerIdentity.findCustomerId(username);
         
-        if (customer == null) {
+        if (customerId == null) {
             throw new IllegalStateException("No customer found for username: " + username);
         }
         
-        return customer;
+        return customerId;
     }
 
     /**
@@ -120,16 +134,16 @@ public class CustomerBankServiceBean implements CustomerBankService {
     private void validateCustomerAccess(long customerId) {
         if (sessionContext.isCallerInRole("customer")) {
             String username = sessionContext.getCallerPrincipal().getName();
-            CustomerDTO authenticatedCustomer = customerService.findByUsername(username);
+            Long authenticatedId = customerIdentity.findCustomerId(username);
             
-            if (authenticatedCustomer == null) {
+            if (authenticatedId == null) {
                 throw new SecurityException("Customer not found for username: " + username);
             }
             
-            if (authenticatedCustomer.getId() != customerId) {
+            if (authenticatedId != customerId) {
                 throw new SecurityException(
                     "Access denied: Customer can only access own account. " +
-                    "Authenticated ID: " + authenticatedCustomer.getId() + 
+                    "Authenticated ID: " + authenticatedId + 
                     ", Requested ID: " + customerId
                 );
             }
@@ -0,0 +1,52 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the caller principal (WildFly username) of a customer to the customer id.
+ *
+ * Every customer call resolves its caller; after the first call of a user this is a map lookup
+ * instead of a query. Unknown usernames are not remembered, so a customer created later is found
+ * on the next call. Entries of a customer are dropped when the customer is updated.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CustomerIdentityBean {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final Map<String, Long> customerIds = new ConcurrentHashMap<>();
+
+    /**
+     * Id of the customer with the given username, or null if there is none.
+     */
+    public Long findCustomerId(String username) {
+        if (username == null || username.isBlank()) return null;
+
+        Long id = customerIds.get(username);
+        if (id != null) return id;
+
+        List<Long> ids = em.createNamedQuery("Customer.findIdByUsername", Long.class)
+                .setParameter("username", username)
+                .getResultList();
+        if (ids.isEmpty()) return null;
+
+        customerIds.put(username, ids.get(0));
+        return ids.get(0);
+    }
+
+    /**
+     * Forgets the usernames mapped to the customer, e.g. after the customer was updated.
+     */
+    public void invalidate(long customerId) {
+        customerIds.values().removeIf(id -> id == customerId);
+    }
+}
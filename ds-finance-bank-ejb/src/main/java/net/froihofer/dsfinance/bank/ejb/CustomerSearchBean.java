@@ -0,0 +1,343 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.entity.CustomerEntity;
+import net.froihofer.dsfinance.bank.entity.CustomerNameTokenEntity;
+import net.froihofer.dsfinance.bank.entity.CustomerNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Name search over customers.
+ *
+ * Every first and last name is split into search tokens (see {@link CustomerNames}), stored in
+ * the indexed CUSTOMER_NAME_TOKEN table. A search term matches a customer if each of its tokens
+ * is a prefix of one of the customer's tokens in that field, so "ann" finds "Anna-Lena" and
+ * "lena" finds it too; no leading wildcard is ever needed.
+ *
+ * With {@code -Dcustomer.search.inMemoryIndex=true} the tokens are additionally held in sorted
+ * in-memory maps, built at deployment and updated when a customer change commits; matching
+ * customer ids then come from memory and only the customers themselves are loaded.
+ *
+ * Results are selected straight into {@link CustomerDTO}s; no customer entity is loaded.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrationBean")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CustomerSearchBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CustomerSearchBean.class);
+
+    private static final String PROP_IN_MEMORY_INDEX = "customer.search.inMemoryIndex";
+
+    // Customers loaded per statement by id
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    // Customers normalized per flush when upgrading existing rows
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    // Same order as the database: the normalized names are what the name setters store
+    private static final Comparator<CustomerDTO> BY_NAME = Comparator
+            .comparing((CustomerDTO c) -> CustomerNames.normalize(c.getLastName()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(c -> CustomerNames.normalize(c.getFirstName()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CustomerDTO::getId);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
+    private volatile boolean inMemory;
+
+    // Token -> ids of the customers having it, per field
+    private final NavigableMap<String, Set<Long>> firstNameTokens = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<Long>> lastNameTokens = new ConcurrentSkipListMap<>();
+
+    // Tokens currently indexed per customer: [first name tokens, last name tokens]
+    private final Map<Long, List<List<String>>> indexedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        backfill();
+
+        inMemory = Boolean.getBoolean(PROP_IN_MEMORY_INDEX);
+        if (inMemory) {
+            List<Object[]> rows = em.createQuery(
+                            "SELECT c.id, c.firstName, c.lastName FROM CustomerEntity c", Object[].class)
+                    .getResultList();
+            for (Object[] row : rows) {
+                put((Long) row[0], (String) row[1], (String) row[2]);
+            }
+            LOG.info("Customer search index loaded: {} customers, {} first name and {} last name tokens",
+                    indexedTokens.size(), firstNameTokens.size(), lastNameTokens.size());
+        }
+    }
+
+    /**
+     * Writes the search tokens of a customer that was created or renamed in the caller's
+     * transaction. The in-memory index follows when that transaction commits.
+     */
+    public void index(CustomerEntity customer) {
+        if (customer == null || customer.getId() == null) return;
+
+        em.createNamedQuery("CustomerNameToken.deleteByCustomerId")
+                .setParameter("customerId", customer.getId())
+                .executeUpdate();
+        writeTokens(customer);
+
+        if (inMemory) {
+            Long id = customer.getId();
+            String firstName = customer.getFirstName();
+            String lastName = customer.getLastName();
+            txRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) put(id, firstName, lastName);
+                }
+            });
+        }
+    }
+
+    /**
+     * Customers whose first and last name match the given terms, ordered by last name,
+     * first name and id. A blank term matches every name; if both are blank, all customers
+     * are returned.
+     */
+    public List<CustomerDTO> search(String firstName, String lastName) {
+        List<String> first = CustomerNames.tokens(firstName);
+        List<String> last = CustomerNames.tokens(lastName);
+        if (first.isEmpty() && last.isEmpty()) {
+            return em.createNamedQuery("Customer.findAll", CustomerDTO.class).getResultList();
+        }
+        return inMemory ? searchInMemory(first, last) : searchInDatabase(first, last);
+    }
+
+    /**
+     * One page of the customers matching the given terms (see {@link #search}), ordered by id:
+     * at most {@code limit} customers with an id greater than {@code afterId}.
+     * Keyset paging on the primary key keeps every page equally cheap, however deep it is.
+     *
+     * @param afterId Id of the last customer of the previous page, null for the first page
+     */
+    public List<CustomerDTO> searchPage(String firstName, String lastName, Long afterId, int limit) {
+        List<String> first = CustomerNames.tokens(firstName);
+        List<String> last = CustomerNames.tokens(lastName);
+        boolean all = first.isEmpty() && last.isEmpty();
+
+        if (inMemory && !all) {
+            List<Long> ids = new ArrayList<>(matchingIds(first, last));
+            Collections.sort(ids);
+            int from = 0;
+            if (afterId != null) {
+                // First id greater than afterId
+                int pos = Collections.binarySearch(ids, afterId);
+                from = (pos >= 0) ? pos + 1 : -pos - 1;
+            }
+            List<CustomerDTO> page = findByIds(ids.subList(from, Math.min(ids.size(), from + limit)));
+            page.sort(Comparator.comparing(CustomerDTO::getId));
+            return page;
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        List<String> conditions = tokenConditions(first, last, params);
+        if (afterId != null) {
+            conditions.add("c.id > :afterId");
+            params.put("afterId", afterId);
+        }
+        TypedQuery<CustomerDTO> query = em.createQuery(
+                CustomerEntity.SELECT_DTO + where(conditions) + " ORDER BY c.id", CustomerDTO.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Number of customers matching the given terms (see {@link #search}).
+     */
+    public long count(String firstName, String lastName) {
+        List<String> first = CustomerNames.tokens(firstName);
+        List<String> last = CustomerNames.tokens(lastName);
+        if (inMemory && !(first.isEmpty() && last.isEmpty())) {
+            return matchingIds(first, last).size();
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        TypedQuery<Long> query = em.createQuery(
+                "SELECT COUNT(c) FROM CustomerEntity c" + where(tokenConditions(first, last, params)), Long.class);
+        params.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private List<CustomerDTO> searchInDatabase(List<String> first, List<String> last) {
+        Map<String, Object> params = new HashMap<>();
+        TypedQuery<CustomerDTO> query = em.createQuery(
+                CustomerEntity.SELECT_DTO + where(tokenConditions(first, last, params))
+                        + " ORDER BY c.lastNameNormalized, c.firstNameNormalized, c.id",
+                CustomerDTO.class);
+        params.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    /**
+     * One condition per search token: the customer has a token in that field starting with it.
+     */
+    private List<String> tokenConditions(List<String> first, List<String> last, Map<String, Object> params) {
+        List<String> conditions = new ArrayList<>();
+        for (String t : first) {
+            conditions.add(tokenCondition(conditions.size(), CustomerNameTokenEntity.FIRST_NAME, t, params));
+        }
+        for (String t : last) {
+            conditions.add(tokenCondition(conditions.size(), CustomerNameTokenEntity.LAST_NAME, t, params));
+        }
+        return conditions;
+    }
+
+    private String tokenCondition(int i, String field, String token, Map<String, Object> params) {
+        params.put("f" + i, field);
+        // Tokens consist of letters and digits only, so they never contain LIKE wildcards
+        params.put("p" + i, token + "%");
+        return "c.id IN (SELECT t.customerId FROM CustomerNameTokenEntity t"
+                + " WHERE t.field = :f" + i + " AND t.token LIKE :p" + i + ")";
+    }
+
+    private String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private List<CustomerDTO> searchInMemory(List<String> first, List<String> last) {
+        List<CustomerDTO> result = findByIds(new ArrayList<>(matchingIds(first, last)));
+        result.sort(BY_NAME);
+        return result;
+    }
+
+    private Set<Long> matchingIds(List<String> first, List<String> last) {
+        Set<Long> ids = null;
+        for (String t : first) {
+            ids = intersect(ids, withPrefix(firstNameTokens, t));
+        }
+        for (String t : last) {
+            ids = intersect(ids, withPrefix(lastNameTokens, t));
+        }
+        return (ids == null) ? Set.of() : ids;
+    }
+
+    private List<CustomerDTO> findByIds(List<Long> ids) {
+        List<CustomerDTO> result = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            result.addAll(em.createNamedQuery("Customer.findByIds", CustomerDTO.class)
+                    .setParameter("ids", ids.subList(from, Math.min(ids.size(), from + ID_CHUNK_SIZE)))
+                    .getResultList());
+        }
+        return result;
+    }
+
+    private Set<Long> withPrefix(NavigableMap<String, Set<Long>> tokens, String prefix) {
+        Set<Long> ids = new HashSet<>();
+        for (Set<Long> s : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            ids.addAll(s);
+        }
+        return ids;
+    }
+
+    private Set<Long> intersect(Set<Long> ids, Set<Long> other) {
+        if (ids == null) return other;
+        ids.retainAll(other);
+        return ids;
+    }
+
+    private synchronized void put(Long id, String firstName, String lastName) {
+        List<List<String>> old = indexedTokens.get(id);
+        if (old != null) {
+            remove(firstNameTokens, old.get(0), id);
+            remove(lastNameTokens, old.get(1), id);
+        }
+
+        List<String> first = CustomerNames.tokens(firstName);
+        List<String> last = CustomerNames.tokens(lastName);
+        add(firstNameTokens, first, id);
+        add(lastNameTokens, last, id);
+        indexedTokens.put(id, List.of(first, last));
+    }
+
+    private void add(NavigableMap<String, Set<Long>> tokens, Collection<String> keys, Long id) {
+        for (String t : keys) {
+            tokens.computeIfAbsent(t, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void remove(NavigableMap<String, Set<Long>> tokens, Collection<String> keys, Long id) {
+        for (String t : keys) {
+            tokens.computeIfPresent(t, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private void writeTokens(CustomerEntity customer) {
+        for (String t : CustomerNames.tokens(customer.getFirstName())) {
+            em.persist(new CustomerNameTokenEntity(customer.getId(), CustomerNameTokenEntity.FIRST_NAME, t));
+        }
+        for (String t : CustomerNames.tokens(customer.getLastName())) {
+            em.persist(new CustomerNameTokenEntity(customer.getId(), CustomerNameTokenEntity.LAST_NAME, t));
+        }
+    }
+
+    /**
+     * Normalizes names and writes search tokens of customers stored before the search columns existed.
+     */
+    private void backfill() {
+        int count = 0;
+        while (true) {
+            List<CustomerEntity> batch = em.createNamedQuery("Customer.findWithoutNormalizedName", CustomerEntity.class)
+                    .setMaxResults(BACKFILL_BATCH_SIZE)
+                    .getResultList();
+            if (batch.isEmpty()) break;
+
+            for (CustomerEntity c : batch) {
+                // The setters fill in the normalized names
+                c.setFirstName(c.getFirstName());
+                c.setLastName(c.getLastName());
+                writeTokens(c);
+            }
+            em.flush();
+            em.clear();
+            count += batch.size();
+        }
+        if (count > 0) {
+            LOG.info("Customer search: normalized names of {} existing customers", count);
+        }
+    }
+}
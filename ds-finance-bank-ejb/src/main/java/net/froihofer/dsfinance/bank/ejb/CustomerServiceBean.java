@@ -1,18 +1,21 @@
 package net.froihofer.dsfinance.bank.ejb;
 
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 import net.froihofer.dsfinance.bank.api.CustomerServiceLocal;
 import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.dto.CustomerPageDTO;
 import net.froihofer.dsfinance.bank.entity.CustomerEntity;
 import net.froihofer.util.jboss.WildflyAuthDBHelper;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 /**
  * Dedicated service bean for customer management.
@@ -23,9 +26,21 @@ import java.util.stream.Collectors;
 @RolesAllowed("employee")
 public class CustomerServiceBean implements CustomerServiceLocal {
 
+    // Largest page of a paged customer search (system property on the WildFly JVM)
+    private static final String PROP_MAX_PAGE_SIZE = "customer.search.maxPageSize";
+
+    private static final int DEFAULT_MAX_PAGE_SIZE = 200;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     @PersistenceContext
     private EntityManager em;
 
+    @EJB
+    private CustomerSearchBean customerSearch;
+
+    @EJB
+    private CustomerIdentityBean customerIdentity;
+
     @Override
     public long createCustomer(CustomerDTO customer) {
         if (customer == null) {
@@ -52,6 +67,7 @@ public class CustomerServiceBean implements CustomerServiceLocal {
 
         em.persist(entity);
         em.flush();
+        customerSearch.index(entity);
 
         // Create corresponding WildFly user
         String initialPassword = customer.getInitialPassword();
@@ -76,8 +92,10 @@ public class CustomerServiceBean implements CustomerServiceLocal {
 
     @Override
     public CustomerDTO findById(long id) {
-        CustomerEntity entity = em.find(CustomerEntity.class, id);
-        return entity == null ? null : toDto(entity);
+        List<CustomerDTO> result = em.createNamedQuery("Customer.findDtoById", CustomerDTO.class)
+            .setParameter("id", id)
+            .getResultList();
+        return result.isEmpty() ? null : result.get(0);
     }
 
     @Override
@@ -90,13 +108,9 @@ public class CustomerServiceBean implements CustomerServiceLocal {
         String trimmedNumber = customerNumber.trim();
 
         try {
-            CustomerEntity entity = em.createQuery(
-                    "SELECT c FROM CustomerEntity c WHERE c.customerNumber = :number", 
-                    CustomerEntity.class
-                )
+            return em.createNamedQuery("Customer.findDtoByCustomerNumber", CustomerDTO.class)
                 .setParameter("number", trimmedNumber)
                 .getSingleResult();
-            return toDto(entity);
         } catch (NoResultException e) {
             return null;
         }
@@ -109,13 +123,9 @@ public class CustomerServiceBean implements CustomerServiceLocal {
         }
 
         try {
-            CustomerEntity entity = em.createQuery(
-                    "SELECT c FROM CustomerEntity c WHERE c.username = :username", 
-                    CustomerEntity.class
-                )
+            return em.createNamedQuery("Customer.findDtoByUsername", CustomerDTO.class)
                 .setParameter("username", username)
                 .getSingleResult();
-            return toDto(entity);
         } catch (NoResultException e) {
             return null;
         }
@@ -123,21 +133,26 @@ public class CustomerServiceBean implements CustomerServiceLocal {
 
     @Override
     public List<CustomerDTO> searchByName(String firstName, String lastName) {
-        // Handle null/empty parameters - if both are null/empty, return all customers
-        String firstPattern = (firstName == null || firstName.isBlank()) ? "%" : "%" + firstName.trim() + "%";
-        String lastPattern = (lastName == null || lastName.isBlank()) ? "%" : "%" + lastName.trim() + "%";
-        
-        List<CustomerEntity> results = em.createNamedQuery(
-                "Customer.findByName", 
-                CustomerEntity.class
-            )
-            .setParameter("first", firstPattern)
-            .setParameter("last", lastPattern)
-            .getResultList();
-        
-        return results.stream()
-            .map(this::toDto)
-            .collect(Collectors.toList());
+        // Prefix match on the name tokens; if both are null/empty, return all customers
+        return customerSearch.search(firstName, lastName);
+    }
+
+    @Override
+    public CustomerPageDTO searchByNamePage(String firstName, String lastName, Long afterId, int pageSize,
+                                            boolean withTotalCount) {
+        int maxPageSize = Math.max(1, Integer.getInteger(PROP_MAX_PAGE_SIZE, DEFAULT_MAX_PAGE_SIZE));
+        int size = (pageSize <= 0) ? Math.min(DEFAULT_PAGE_SIZE, maxPageSize) : Math.min(pageSize, maxPageSize);
+
+        // One more than requested tells whether another page follows
+        List<CustomerDTO> customers = customerSearch.searchPage(firstName, lastName, afterId, size + 1);
+        boolean more = customers.size() > size;
+        if (more) {
+            customers = new ArrayList<>(customers.subList(0, size));
+        }
+
+        Long nextAfterId = more ? customers.get(customers.size() - 1).getId() : null;
+        Long totalCount = withTotalCount ? customerSearch.count(firstName, lastName) : null;
+        return new CustomerPageDTO(customers, nextAfterId, totalCount);
     }
 
     @Override
@@ -151,6 +166,9 @@ public class CustomerServiceBean implements CustomerServiceLocal {
             throw new IllegalArgumentException("Customer not found with ID: " + customer.getId());
         }
         
+        boolean renamed = !Objects.equals(entity.getFirstName(), customer.getFirstName())
+                || !Objects.equals(entity.getLastName(), customer.getLastName());
+
         // Update fields
         entity.setFirstName(customer.getFirstName());
         entity.setLastName(customer.getLastName());
@@ -158,6 +176,10 @@ public class CustomerServiceBean implements CustomerServiceLocal {
         // Note: username and customerNumber typically shouldn't change
         
         em.merge(entity);
+        if (renamed) {
+            customerSearch.index(entity);
+        }
+        customerIdentity.invalidate(entity.getId());
     }
 
     // Internal helper methods for entity access (used by other beans)
@@ -178,26 +200,11 @@ public class CustomerServiceBean implements CustomerServiceLocal {
             return null;
         }
         try {
-            return em.createQuery(
-                    "SELECT c FROM CustomerEntity c WHERE c.username = :username", 
-                    CustomerEntity.class
-                )
+            return em.createNamedQuery("Customer.findByUsername", CustomerEntity.class)
                 .setParameter("username", username)
                 .getSingleResult();
         } catch (NoResultException e) {
             return null;
         }
     }
-
-    // Helper method for DTO conversion
-    private CustomerDTO toDto(CustomerEntity c) {
-        return new CustomerDTO(
-            c.getId(),
-            c.getCustomerNumber(),
-            c.getFirstName(),
-            c.getLastName(),
-            c.getAddress(),
-            c.getUsername()
-        );
-    }
 }
\ No newline at end of file
@@ -1,21 +1,36 @@
 package net.froihofer.dsfinance.bank.ejb;
 
+import jakarta.annotation.Resource;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import net.froihofer.dsfinance.bank.api.DepotServiceLocal;
 import net.froihofer.dsfinance.bank.dto.PortfolioDTO;
 import net.froihofer.dsfinance.bank.dto.PortfolioPositionDTO;
+import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
 import net.froihofer.dsfinance.bank.entity.*;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Dedicated service bean for portfolio (depot) management.
@@ -31,12 +46,37 @@ import java.util.Locale;
 @RolesAllowed("employee")
 public class DepotServiceBean implements DepotServiceLocal {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DepotServiceBean.class);
+
+    // Opt-in parallel valuation (system properties on the WildFly JVM)
+    private static final String PROP_PARALLEL_VALUATION = "trading.valuation.parallel";
+    private static final String PROP_MAX_CONCURRENCY = "trading.valuation.maxConcurrency";
+    private static final String PROP_DEADLINE_MS = "trading.valuation.deadlineMs";
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+    private static final long DEFAULT_DEADLINE_MS = 5_000;
+
     @PersistenceContext
     private EntityManager em;
 
     @EJB
     private TradingServiceAdapterBean tradingAdapter;
 
+    @EJB
+    private MarketDataRefresherBean marketDataRefresher;
+
+    @EJB
+    private QuoteCacheBean quoteCache;
+
+    @EJB
+    private QuoteHistoryBean quoteHistory;
+
+    @EJB
+    private StockDirectoryBean stockDirectory;
+
+    @Resource
+    private ManagedExecutorService valuationExecutor;
+
     @Override
     public void ensureDepotExists(long customerId) {
         getOrCreateDepotEntity(customerId);
@@ -59,7 +99,8 @@ public class DepotServiceBean implements DepotServiceLocal {
         DepotPositionEntity position = findPositionByQuery(depot.getId(), stock.getId());
 
         if (position == null) {
-            // Create new position
+            // Create new position. A concurrent settlement for this customer waits on the
+            // customer lock until this one commits and then finds and updates the position
             position = new DepotPositionEntity();
             position.setDepot(depot);
             position.setStock(stock);
@@ -80,19 +121,19 @@ public class DepotServiceBean implements DepotServiceLocal {
             throw new IllegalArgumentException("Quantity must be positive");
         }
 
-        CustomerEntity customer = findCustomerEntityById(customerId);
+        CustomerEntity customer = lockCustomer(customerId);
         if (customer == null || customer.getDepot() == null) {
             throw new IllegalArgumentException("Customer has no portfolio");
         }
 
         String symbol = normalizeSymbol(stockSymbol);
-        StockEntity stock = findStockBySymbol(symbol);
-        if (stock == null) {
+        Long stockId = findStockId(symbol);
+        if (stockId == null) {
             throw new IllegalArgumentException("Stock not found: " + symbol);
         }
 
         // Find position using QUERY (not list!)
-        DepotPositionEntity position = findPositionByQuery(customer.getDepot().getId(), stock.getId());
+        DepotPositionEntity position = findPositionByQuery(customer.getDepot().getId(), stockId);
         if (position == null) {
             throw new IllegalArgumentException("No position found for stock: " + symbol);
         }
@@ -117,72 +158,81 @@ public class DepotServiceBean implements DepotServiceLocal {
 
     @Override
     public List<PortfolioPositionDTO> getDepotPositions(long customerId) {
-        CustomerEntity customer = findCustomerEntityById(customerId);
-        if (customer == null || customer.getDepot() == null) {
-            return new ArrayList<>();
-        }
-
-        // Get positions using QUERY (professor feedback: don't use list on entity!)
-        List<DepotPositionEntity> positions = findPositionsByDepotId(customer.getDepot().getId());
-        List<PortfolioPositionDTO> result = new ArrayList<>();
-
-        for (DepotPositionEntity pos : positions) {
-            // SERVER-SIDE CALCULATIONS (professor feedback)
-            BigDecimal currentPrice = getCurrentPriceBySymbol(pos.getStock().getSymbol());
-            BigDecimal totalValue = currentPrice.multiply(new BigDecimal(pos.getQuantity()));
-            BigDecimal purchaseValue = pos.getAveragePurchasePrice().multiply(new BigDecimal(pos.getQuantity()));
-            BigDecimal profitLoss = totalValue.subtract(purchaseValue);
-
-            PortfolioPositionDTO dto = new PortfolioPositionDTO(
-                    pos.getStock().getSymbol(),
-                    pos.getStock().getCompanyName(),
-                    pos.getQuantity(),
-                    pos.getAveragePurchasePrice(),
-                    currentPrice,
-                    totalValue,
-                    purchaseValue,
-                    profitLoss
-            );
-
-            result.add(dto);
-        }
+        return assemblePortfolio(customerId).getPositions();
+    }
 
-        return result;
+    @Override
+    public int getHeldQuantity(long customerId, String stockSymbol) {
+        String symbol = normalizeSymbol(stockSymbol);
+        if (symbol == null) return 0;
+
+        // Only the quantity column is read; neither customer, depot nor position is loaded
+        List<Integer> quantities = em.createNamedQuery("DepotPosition.findQuantityByCustomerAndSymbol", Integer.class)
+                .setParameter("customerId", customerId)
+                .setParameter("symbol", symbol)
+                .getResultList();
+        if (quantities.isEmpty() || quantities.get(0) == null) return 0;
+        return quantities.get(0);
     }
 
     @Override
     public BigDecimal calculateTotalValue(long customerId) {
-        List<PortfolioPositionDTO> positions = getDepotPositions(customerId);
+        return assemblePortfolio(customerId).getTotalValue();
+    }
+
+    @Override
+    public PortfolioDTO getCustomerPortfolio(long customerId) {
+        return assemblePortfolio(customerId);
+    }
+
+    /**
+     * Builds the complete portfolio in a single pass: positions are loaded once,
+     * quotes are fetched once, and per-position values and the total are computed
+     * in the same loop.
+     * Positions are read as DTOs by one query joining the stock; no entity is loaded.
+     */
+    private PortfolioDTO assemblePortfolio(long customerId) {
+        BigDecimal portfolioValue = BigDecimal.ZERO;
+
+        // Get positions using QUERY (professor feedback: don't use list on entity!)
+        List<PortfolioPositionDTO> positions = findPortfolioPositions(customerId);
+
+        // Price the whole depot with one batched quote request instead of one search per position,
+        // or - if enabled - with concurrent per-symbol lookups bounded by a deadline
+        boolean parallel = booleanSystemProperty(PROP_PARALLEL_VALUATION, false);
+        Map<String, StockQuoteDTO> quotes = parallel ? fetchQuotesInParallel(positions) : fetchQuotes(positions);
 
-        BigDecimal totalValue = BigDecimal.ZERO;
         for (PortfolioPositionDTO pos : positions) {
-            if (pos.getTotalValue() != null) {
-                totalValue = totalValue.add(pos.getTotalValue());
+            // SERVER-SIDE CALCULATIONS (professor feedback)
+            BigDecimal currentPrice = priceOf(pos.getSymbol(), quotes, !parallel);
+            boolean stale = (currentPrice == null);
+            if (stale) {
+                currentPrice = lastKnownPrice(pos.getSymbol());
             }
-        }
+            BigDecimal totalValue = currentPrice.multiply(new BigDecimal(pos.getQuantity()));
 
-        return totalValue;
-    }
+            pos.setCurrentPrice(currentPrice);
+            pos.setTotalValue(totalValue);
+            pos.recalculateValues();
+            pos.setPriceStale(stale);
 
-    @Override
-    public PortfolioDTO getCustomerPortfolio(long customerId) {
-        List<PortfolioPositionDTO> positions = getDepotPositions(customerId);
-        BigDecimal totalValue = calculateTotalValue(customerId);
+            portfolioValue = portfolioValue.add(totalValue);
+        }
 
-        return new PortfolioDTO(customerId, positions, totalValue);
+        return new PortfolioDTO(customerId, positions, portfolioValue);
     }
 
     // ==================== QUERY-BASED POSITION RETRIEVAL ====================
     // Professor Feedback: "Use unidirectional associations from the many side"
 
     /**
-     * Find all positions for a depot using a QUERY.
+     * Find all positions of a customer's depot using a QUERY, as unpriced DTOs.
      * This replaces depot.getPositions() which was removed per professor feedback.
      */
-    private List<DepotPositionEntity> findPositionsByDepotId(Long depotId) {
-        TypedQuery<DepotPositionEntity> query = em.createNamedQuery(
-                "DepotPosition.findByDepotId", DepotPositionEntity.class);
-        query.setParameter("depotId", depotId);
+    private List<PortfolioPositionDTO> findPortfolioPositions(long customerId) {
+        TypedQuery<PortfolioPositionDTO> query = em.createNamedQuery(
+                "DepotPosition.findPortfolioByCustomerId", PortfolioPositionDTO.class);
+        query.setParameter("customerId", customerId);
         return query.getResultList();
     }
 
@@ -205,19 +255,24 @@ public class DepotServiceBean implements DepotServiceLocal {
     // ==================== INTERNAL HELPER METHODS ====================
 
     /**
-     * Find customer entity directly using EntityManager.
-     * This avoids circular EJB dependencies.
+     * Loads the customer with a write lock held until the transaction ends.
+     * All changes to a customer's depot and positions take this lock first, so concurrent
+     * settlements for the same customer run one after the other: the second one sees the
+     * depot and position committed by the first instead of inserting a duplicate, which the
+     * unique (depot, stock) constraint would reject after the order was already executed.
+     * The customer row is locked rather than the depot because the first buy creates the depot.
      */
-    private CustomerEntity findCustomerEntityById(long customerId) {
-        return em.find(CustomerEntity.class, customerId);
+    private CustomerEntity lockCustomer(long customerId) {
+        return em.find(CustomerEntity.class, customerId, LockModeType.PESSIMISTIC_WRITE);
     }
 
     /**
      * Internal method to get or create depot entity.
      * Not exposed in interface to avoid entity dependencies.
+     * Locks the customer, see {@link #lockCustomer(long)}.
      */
     private DepotEntity getOrCreateDepotEntity(long customerId) {
-        CustomerEntity customer = findCustomerEntityById(customerId);
+        CustomerEntity customer = lockCustomer(customerId);
         if (customer == null) {
             throw new IllegalArgumentException("Customer not found: " + customerId);
         }
@@ -239,81 +294,219 @@ public class DepotServiceBean implements DepotServiceLocal {
         return s.isEmpty() ? null : s.toUpperCase(Locale.ROOT);
     }
 
-    private BigDecimal getCurrentPriceBySymbol(String symbol) {
+    /**
+     * Fetches quotes for all symbols of the given positions in one batch.
+     * Returns null if the trading service is unavailable.
+     */
+    private Map<String, StockQuoteDTO> fetchQuotes(List<PortfolioPositionDTO> positions) {
+        if (positions.isEmpty()) return Map.of();
+
+        Set<String> symbols = new LinkedHashSet<>();
+        for (PortfolioPositionDTO pos : positions) {
+            symbols.add(pos.getSymbol());
+        }
+
         try {
-            // First try to get from cached stock entity
-            StockEntity stock = findStockBySymbol(symbol);
-            if (stock != null && stock.getCompanyName() != null) {
-                var quotes = tradingAdapter.findStockQuotesByCompanyName(stock.getCompanyName());
-                if (quotes != null && !quotes.isEmpty()) {
-                    for (var q : quotes) {
-                        if (q.getSymbol() != null && q.getSymbol().equalsIgnoreCase(symbol)) {
-                            return q.getLastTradePrice();
-                        }
-                    }
-                    // Return first match if exact symbol not found
-                    if (quotes.get(0).getLastTradePrice() != null) {
-                        return quotes.get(0).getLastTradePrice();
+            // Held symbols are kept warm by the refresher, so accept its staleness budget
+            return tradingAdapter.getStockQuotes(symbols, marketDataRefresher.getStalenessBudgetMs());
+        } catch (Exception e) {
+            // Portfolio display must not break because of the trading service
+            return null;
+        }
+    }
+
+    /**
+     * Fetches quotes for all symbols of the given positions concurrently on the managed executor.
+     * At most {@code trading.valuation.maxConcurrency} lookups run at the same time; lookups that have
+     * not finished after {@code trading.valuation.deadlineMs} are cancelled and their symbols are
+     * missing from the result.
+     */
+    private Map<String, StockQuoteDTO> fetchQuotesInParallel(List<PortfolioPositionDTO> positions) {
+        // Prices kept warm by the refresher need no remote lookup at all
+        Map<String, StockQuoteDTO> quotes = new ConcurrentHashMap<>();
+        List<String> symbols = new ArrayList<>();
+        for (PortfolioPositionDTO pos : positions) {
+            String sym = normalizeSymbol(pos.getSymbol());
+            if (sym == null || quotes.containsKey(sym) || symbols.contains(sym)) continue;
+
+            StockQuoteDTO cached = quoteCache.get(sym, marketDataRefresher.getStalenessBudgetMs());
+            if (cached != null) {
+                quotes.put(sym, cached);
+            } else {
+                symbols.add(sym);
+            }
+        }
+        if (symbols.isEmpty()) return new HashMap<>(quotes);
+
+        int maxConcurrency = (int) Math.max(1, longSystemProperty(PROP_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY));
+        long deadlineMs = Math.max(1, longSystemProperty(PROP_DEADLINE_MS, DEFAULT_DEADLINE_MS));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+
+        // One task per lane; each lane looks up its share of the symbols one after another
+        int lanes = Math.min(maxConcurrency, symbols.size());
+        List<Future<?>> tasks = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            int first = lane;
+            tasks.add(valuationExecutor.submit(() -> {
+                for (int i = first; i < symbols.size() && !Thread.currentThread().isInterrupted(); i += lanes) {
+                    try {
+                        StockQuoteDTO q = tradingAdapter.getStockQuote(symbols.get(i));
+                        if (q != null) quotes.put(symbols.get(i), q);
+                    } catch (RuntimeException e) {
+                        // Symbol stays missing and is reported as stale
                     }
                 }
-            }
+            }));
+        }
 
-            // Fallback: try direct symbol search
-            var quotes = tradingAdapter.findStockQuotesByCompanyName(symbol);
-            if (quotes != null && !quotes.isEmpty() && quotes.get(0).getLastTradePrice() != null) {
-                return quotes.get(0).getLastTradePrice();
+        for (Future<?> task : tasks) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                if (remaining <= 0) throw new TimeoutException();
+                task.get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                task.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task.cancel(true);
+            } catch (ExecutionException e) {
+                // Lookup errors are handled inside the task
             }
+        }
+
+        long missed = symbols.stream().filter(sym -> !quotes.containsKey(sym)).count();
+        if (missed > 0) {
+            LOG.info("Parallel valuation: {} of {} quotes missed the {} ms deadline or failed",
+                    missed, symbols.size(), deadlineMs);
+        }
+        return new HashMap<>(quotes);
+    }
+
+    /**
+     * Current price of a stock from the quote result, or null if no current price is available
+     * (trading service unavailable or deadline missed).
+     * If allowed, falls back to a name search for symbols the batch did not return.
+     */
+    private BigDecimal priceOf(String symbol, Map<String, StockQuoteDTO> quotes, boolean searchFallback) {
+        if (quotes == null) {
+            // Service unavailable: don't retry per position
+            return null;
+        }
+        StockQuoteDTO quote = quotes.get(normalizeSymbol(symbol));
+        if (quote != null && quote.getLastTradePrice() != null) {
+            return quote.getLastTradePrice();
+        }
+        return searchFallback ? getCurrentPriceBySymbol(symbol) : null;
+    }
+
+    /**
+     * Last price seen for a symbol regardless of its age, or zero if it was never quoted.
+     */
+    private BigDecimal lastKnownPrice(String symbol) {
+        StockQuoteDTO q = quoteCache.get(symbol, Long.MAX_VALUE);
+        if (q == null || q.getLastTradePrice() == null) {
+            // Not in memory (e.g. after a restart): use the stored price history
+            q = quoteHistory.getLatest(symbol);
+        }
+        return (q != null && q.getLastTradePrice() != null) ? q.getLastTradePrice() : BigDecimal.ZERO;
+    }
 
-            // Default fallback price
-            return BigDecimal.ZERO;
+    /**
+     * Current price of a symbol by a name search at the exchange, or null if the search fails or
+     * returns no quote with exactly this symbol. Never guesses from a quote of another symbol.
+     */
+    private BigDecimal getCurrentPriceBySymbol(String symbol) {
+        try {
+            // First try the company name stored for the symbol, then the symbol itself
+            String companyName = stockDirectory.findCompanyName(symbol);
+            BigDecimal price = (companyName != null) ? priceInSearch(companyName, symbol) : null;
+            return (price != null) ? price : priceInSearch(symbol, symbol);
         } catch (Exception e) {
-            // Return zero on error to avoid breaking portfolio display
-            return BigDecimal.ZERO;
+            // No price: the caller falls back to the last known one
+            LOG.debug("Price search for {} failed: {}", symbol, e.getMessage());
+            return null;
+        }
+    }
+
+    private BigDecimal priceInSearch(String searchTerm, String symbol) {
+        List<StockQuoteDTO> quotes = tradingAdapter.findStockQuotesByCompanyName(searchTerm);
+        if (quotes == null) return null;
+        for (StockQuoteDTO q : quotes) {
+            if (q != null && q.getSymbol() != null && q.getSymbol().equalsIgnoreCase(symbol)
+                    && q.getLastTradePrice() != null) {
+                return q.getLastTradePrice();
+            }
         }
+        return null;
     }
 
     private StockEntity findOrCreateStock(String symbol) {
         symbol = normalizeSymbol(symbol);
 
-        try {
-            return em.createQuery(
-                            "SELECT s FROM StockEntity s WHERE s.symbol = :symbol",
-                            StockEntity.class
-                    )
-                    .setParameter("symbol", symbol)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            // Create new stock
-            String companyName = symbol;
+        Long id = findStockId(symbol);
+        if (id != null) {
+            // Only the id is needed to reference the stock, so no SELECT is issued
+            return em.getReference(StockEntity.class, id);
+        }
 
-            try {
-                var quotes = tradingAdapter.findStockQuotesByCompanyName(symbol);
-                if (quotes != null && !quotes.isEmpty() && quotes.get(0).getCompanyName() != null) {
-                    companyName = quotes.get(0).getCompanyName();
-                }
-            } catch (Exception ignored) {
-                // Use symbol as fallback
-            }
+        // Create new stock
+        String companyName = symbol;
 
-            StockEntity stock = new StockEntity(symbol, companyName);
-            em.persist(stock);
-            return stock;
+        try {
+            var quotes = tradingAdapter.findStockQuotesByCompanyName(symbol);
+            if (quotes != null && !quotes.isEmpty() && quotes.get(0).getCompanyName() != null) {
+                companyName = quotes.get(0).getCompanyName();
+            }
+        } catch (Exception ignored) {
+            // Use symbol as fallback
         }
+
+        StockEntity stock = new StockEntity(symbol, companyName);
+        em.persist(stock);
+        stockDirectory.registered(stock);
+        return stock;
     }
 
-    private StockEntity findStockBySymbol(String symbol) {
-        String sym = normalizeSymbol(symbol);
-        if (sym == null) return null;
+    /**
+     * Id of the stock with the given symbol, or null if it is not stored.
+     * Resolved from the stock directory; the database is only asked for symbols the directory
+     * does not know yet (inserted by a transaction that has not committed, or by another instance).
+     */
+    private Long findStockId(String symbol) {
+        if (symbol == null) return null;
+        Long id = stockDirectory.findId(symbol);
+        if (id != null) return id;
+
+        List<StockEntity> stored = em.createQuery(
+                        "SELECT s FROM StockEntity s WHERE s.symbol = :symbol",
+                        StockEntity.class
+                )
+                .setParameter("symbol", symbol)
+                .getResultList();
+        if (stored.isEmpty()) return null;
+
+        stockDirectory.registered(stored.get(0));
+        return stored.get(0).getId();
+    }
+
+    private boolean booleanSystemProperty(String name, boolean defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        String value = v.trim();
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+        return defaultValue;
+    }
 
+    private long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
         try {
-            return em.createQuery(
-                            "SELECT s FROM StockEntity s WHERE s.symbol = :symbol",
-                            StockEntity.class
-                    )
-                    .setParameter("symbol", sym)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            return null;
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
         }
     }
 }
@@ -5,21 +5,25 @@ import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.EJB;
 import jakarta.ejb.SessionContext;
 import jakarta.ejb.Stateless;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.NoResultException;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import java.util.Locale;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Date;
 import java.util.List;
 
 import net.froihofer.dsfinance.bank.api.CustomerServiceLocal;
 import net.froihofer.dsfinance.bank.api.DepotServiceLocal;
 import net.froihofer.dsfinance.bank.api.EmployeeBankService;
 import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.dto.CustomerPageDTO;
 import net.froihofer.dsfinance.bank.dto.PortfolioDTO;
+import net.froihofer.dsfinance.bank.dto.QuoteHistoryInterval;
 import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
-import net.froihofer.dsfinance.bank.entity.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Employee bank service with integrated service layer.
@@ -29,8 +33,11 @@ import net.froihofer.dsfinance.bank.entity.*;
 @RolesAllowed("employee")
 public class EmployeeBankServiceBean implements EmployeeBankService {
 
-    @PersistenceContext
-    private EntityManager em;
+    private static final Logger LOG = LoggerFactory.getLogger(EmployeeBankServiceBean.class);
+
+    // Extra volume reserved on top of the estimated cost of a buy order, in percent
+    private static final String PROP_RESERVE_BUFFER_PERCENT = "trading.order.reserveBufferPercent";
+    private static final int DEFAULT_RESERVE_BUFFER_PERCENT = 5;
 
     @EJB
     private TradingServiceAdapterBean tradingAdapter;
@@ -41,6 +48,21 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
     @EJB
     private DepotServiceLocal depotService;
 
+    @EJB
+    private OrderSettlementBean settlement;
+
+    @EJB
+    private BankVolumeEngineBean volumeEngine;
+
+    @EJB
+    private QuoteHistoryCacheBean quoteHistoryCache;
+
+    @EJB
+    private StockDirectoryBean stockDirectory;
+
+    @EJB
+    private CustomerIdentityBean customerIdentity;
+
     @Resource
     private SessionContext sessionContext;
 
@@ -66,6 +88,12 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
         return customerService.searchByName(firstName, lastName);
     }
 
+    @Override
+    public CustomerPageDTO findCustomersByNamePage(String firstName, String lastName, Long afterId, int pageSize,
+                                                   boolean withTotalCount) {
+        return customerService.searchByNamePage(firstName, lastName, afterId, pageSize, withTotalCount);
+    }
+
     @Override
     public List<StockQuoteDTO> findStockQuotesByCompanyName(String companyNameQuery) {
         return tradingAdapter.findStockQuotesByCompanyName(companyNameQuery);
@@ -78,6 +106,14 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
     }
 
     @Override
+    public List<StockQuoteDTO> getStockQuoteHistory(String symbol, Date from, Date to, QuoteHistoryInterval interval) {
+        return quoteHistoryCache.getHistory(symbol, from, to, interval);
+    }
+
+    // The exchange call must not run inside a JTA transaction: the DB work happens in short
+    // REQUIRES_NEW transactions of OrderSettlementBean, bank volume is reserved in memory
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public BigDecimal buyStockForCustomer(long customerId, String symbol, int quantity) {
         if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
 
@@ -86,34 +122,38 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
 
         String sym = normalizeSymbol(symbol);
         
-        // Step 1: Check bank has sufficient volume (estimate with current price)
+        // Step 1: Reserve bank volume for the estimated cost (plus a buffer for price moves)
         BigDecimal estimatedPrice = getCurrentPriceBySymbol(sym);
-        BigDecimal estimatedCost = estimatedPrice.multiply(BigDecimal.valueOf(quantity));
-        BankEntity bank = getBankEntity();
-        
-        if (bank.getAvailableVolume().compareTo(estimatedCost) < 0) {
-            throw new IllegalStateException(
-                "Insufficient bank volume. Available: " + bank.getAvailableVolume() + 
-                ", Estimated cost: " + estimatedCost
-            );
-        }
-
-        // Step 2: Execute BUY order on stock exchange via WS (CRITICAL!)
-        // If this fails, RuntimeException is thrown and transaction rolls back
-        BigDecimal executionPrice = tradingAdapter.buy(sym, quantity);
-        BigDecimal totalCost = executionPrice.multiply(BigDecimal.valueOf(quantity));
+        BigDecimal reserved = estimatedPrice.multiply(BigDecimal.valueOf(quantity))
+                .multiply(BigDecimal.valueOf(100 + reserveBufferPercent()))
+                .divide(BigDecimal.valueOf(100), estimatedPrice.scale(), RoundingMode.UP);
+        volumeEngine.reserve(reserved);
 
-        // Step 3: Decrease bank volume (using actual execution price)
-        bank.decreaseVolume(totalCost);
-
-        // Step 4: Add position to customer depot
-        depotService.addStockPosition(customerId, sym, quantity, executionPrice);
+        // Step 2: Execute BUY order on stock exchange via WS (no transaction open)
+        BigDecimal executionPrice;
+        try {
+            executionPrice = tradingAdapter.buy(sym, quantity);
+        } catch (RuntimeException e) {
+            // Compensate: the order was not executed, give the reservation back
+            volumeEngine.release(reserved);
+            throw e;
+        }
 
-        em.flush();
+        // Step 3: Replace the reservation by the actual cost, add the position
+        volumeEngine.commit(reserved, executionPrice.multiply(BigDecimal.valueOf(quantity)));
+        try {
+            settlement.settleBuy(customerId, sym, quantity, executionPrice);
+        } catch (RuntimeException e) {
+            // The shares are bought at the exchange - this needs manual reconciliation
+            LOG.error("BUY of {} x {} at {} for customer {} executed but not settled",
+                    quantity, sym, executionPrice, customerId, e);
+            throw e;
+        }
         return executionPrice;
     }
 
     @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public BigDecimal sellStockForCustomer(long customerId, String symbol, int quantity) {
         if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
 
@@ -123,36 +163,35 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
         String sym = normalizeSymbol(symbol);
 
         // Step 1: Verify customer has sufficient shares BEFORE calling WS
-        // This is done inside removeStockPosition, but we check first to fail fast
-        PortfolioDTO portfolio = depotService.getCustomerPortfolio(customerId);
-        boolean hasShares = false;
-        for (var pos : portfolio.getPositions()) {
-            if (pos.getSymbol() != null && pos.getSymbol().equalsIgnoreCase(sym)) {
-                if (pos.getQuantity() >= quantity) {
-                    hasShares = true;
-                    break;
-                }
-            }
-        }
-        if (!hasShares) {
+        // This is done again when reserving, but we check first to fail fast (one query, no pricing)
+        if (depotService.getHeldQuantity(customerId, sym) < quantity) {
             throw new IllegalArgumentException(
                 "Insufficient shares of " + sym + " to sell. Requested: " + quantity
             );
         }
 
-        // Step 2: Execute SELL order on stock exchange via WS (CRITICAL!)
-        // If this fails, RuntimeException is thrown and transaction rolls back
-        BigDecimal executionPrice = tradingAdapter.sell(sym, quantity);
-        BigDecimal totalRevenue = executionPrice.multiply(BigDecimal.valueOf(quantity));
+        // Step 2: Reserve the shares, so a concurrent sale cannot sell them twice
+        BigDecimal averagePrice = settlement.reserveShares(customerId, sym, quantity);
 
-        // Step 3: Remove position from customer depot
-        depotService.removeStockPosition(customerId, sym, quantity);
+        // Step 3: Execute SELL order on stock exchange via WS (no transaction open)
+        BigDecimal executionPrice;
+        try {
+            executionPrice = tradingAdapter.sell(sym, quantity);
+        } catch (RuntimeException e) {
+            // Compensate: the order was not executed, put the shares back
+            try {
+                settlement.releaseShares(customerId, sym, quantity, averagePrice);
+            } catch (RuntimeException releaseFailed) {
+                // The shares are out of the depot but not sold - this needs manual reconciliation
+                LOG.error("SELL of {} x {} for customer {} failed and the shares were not put back",
+                        quantity, sym, customerId, releaseFailed);
+                e.addSuppressed(releaseFailed);
+            }
+            throw e;
+        }
 
         // Step 4: Increase bank volume (using actual execution price)
-        BankEntity bank = getBankEntity();
-        bank.increaseVolume(totalRevenue);
-
-        em.flush();
+        volumeEngine.credit(executionPrice.multiply(BigDecimal.valueOf(quantity)));
         return executionPrice;
     }
 
@@ -167,8 +206,7 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
 
     @Override
     public BigDecimal getInvestableVolume() {
-        BankEntity bank = getBankEntity();
-        return bank.getAvailableVolume();
+        return volumeEngine.getAvailableVolume();
     }
 
     /**
@@ -183,13 +221,13 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
         if (sessionContext != null && sessionContext.isCallerInRole("customer")) {
             // Customer role - validate they're accessing their own account
             String username = sessionContext.getCallerPrincipal().getName();
-            CustomerDTO authenticatedCustomer = customerService.findByUsername(username);
+            Long authenticatedId = customerIdentity.findCustomerId(username);
 
-            if (authenticatedCustomer == null) {
+            if (authenticatedId == null) {
                 throw new SecurityException("Customer not found for username: " + username);
             }
 
-            if (authenticatedCustomer.getId() != customerId) {
+            if (authenticatedId != customerId) {
                 throw new SecurityException(
                         "Access denied: Customer can only access own account"
                 );
@@ -209,6 +247,14 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
         String sym = normalizeSymbol(symbol);
         if (sym == null) throw new IllegalArgumentException("Symbol must not be blank");
 
+        // Direct symbol lookup (served from the shared quote cache while fresh)
+        try {
+            StockQuoteDTO direct = tradingAdapter.getStockQuote(sym);
+            if (direct != null && direct.getLastTradePrice() != null) return direct;
+        } catch (RuntimeException e) {
+            // fall back to the name search below
+        }
+
         List<StockQuoteDTO> quotes = tradingAdapter.findStockQuotesByCompanyName(sym);
         if (quotes != null) {
             for (StockQuoteDTO q : quotes) {
@@ -241,9 +287,9 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
         try {
             return findQuoteBySymbol(sym);
         } catch (RuntimeException firstFail) {
-            StockEntity cached = findStockBySymbol(sym);
-            if (cached != null && cached.getCompanyName() != null && !cached.getCompanyName().isBlank()) {
-                List<StockQuoteDTO> quotes = tradingAdapter.findStockQuotesByCompanyName(cached.getCompanyName());
+            String companyName = stockDirectory.findCompanyName(sym);
+            if (companyName != null) {
+                List<StockQuoteDTO> quotes = tradingAdapter.findStockQuotesByCompanyName(companyName);
                 if (quotes != null) {
                     for (StockQuoteDTO q : quotes) {
                         if (q != null && q.getSymbol() != null && sym.equals(normalizeSymbol(q.getSymbol()))) {
@@ -263,29 +309,15 @@ public class EmployeeBankServiceBean implements EmployeeBankService {
         }
     }
 
-    private StockEntity findStockBySymbol(String symbol) {
-        String sym = normalizeSymbol(symbol);
-        if (sym == null) return null;
-
+    private int reserveBufferPercent() {
+        String v = System.getProperty(PROP_RESERVE_BUFFER_PERCENT);
+        if (v == null || v.isBlank()) return DEFAULT_RESERVE_BUFFER_PERCENT;
         try {
-            return em.createQuery("SELECT s FROM StockEntity s WHERE s.symbol = :symbol", StockEntity.class)
-                    .setParameter("symbol", sym)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            return null;
-        }
-    }
-
-    private BankEntity getBankEntity() {
-        List<BankEntity> banks = em.createQuery("SELECT b FROM BankEntity b", BankEntity.class)
-                .getResultList();
-        if (banks.isEmpty()) {
-            BankEntity bank = new BankEntity();
-            bank.setTotalInvestableVolume(new BigDecimal("1000000000"));
-            bank.setAvailableVolume(new BigDecimal("1000000000"));
-            em.persist(bank);
-            return bank;
+            return Math.max(0, Integer.parseInt(v.trim()));
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}",
+                    v, PROP_RESERVE_BUFFER_PERCENT, DEFAULT_RESERVE_BUFFER_PERCENT);
+            return DEFAULT_RESERVE_BUFFER_PERCENT;
         }
-        return banks.get(0);
     }
-}
\ No newline at end of file
+}
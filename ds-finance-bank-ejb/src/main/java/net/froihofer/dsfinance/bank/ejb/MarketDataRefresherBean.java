@@ -0,0 +1,183 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.annotation.security.RunAs;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the prices of all held stocks warm in the {@link QuoteCacheBean}.
+ *
+ * Every {@code trading.refresh.intervalMs} milliseconds (default 15 s, 0 disables the refresher)
+ * the distinct symbols of all depot positions are collected and refreshed in batches of
+ * {@code trading.refresh.batchSize} (default 50). Depot valuation accepts cached prices up to
+ * {@code trading.refresh.stalenessBudgetMs} old (default 60 s), so portfolio views are priced
+ * from memory as long as the refresher keeps up.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrationBean")
+@RunAs("employee")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class MarketDataRefresherBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MarketDataRefresherBean.class);
+
+    private static final String PROP_INTERVAL_MS = "trading.refresh.intervalMs";
+    private static final String PROP_BATCH_SIZE = "trading.refresh.batchSize";
+    private static final String PROP_STALENESS_BUDGET_MS = "trading.refresh.stalenessBudgetMs";
+
+    private static final long DEFAULT_INTERVAL_MS = 15_000;
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final long DEFAULT_STALENESS_BUDGET_MS = 60_000;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @EJB
+    private TradingServiceAdapterBean tradingAdapter;
+
+    @EJB
+    private QuoteCacheBean quoteCache;
+
+    @Resource
+    private TimerService timerService;
+
+    private long intervalMs;
+    private int batchSize;
+    private long stalenessBudgetMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Metrics
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private volatile long lastRefreshDurationMs = -1;
+    private volatile long lastRefreshFinishedAt = -1;
+    private volatile int lastSymbolCount;
+    private volatile long maxStalenessMs = -1;
+
+    @PostConstruct
+    void init() {
+        intervalMs = longSystemProperty(PROP_INTERVAL_MS, DEFAULT_INTERVAL_MS);
+        batchSize = (int) Math.max(1, longSystemProperty(PROP_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        stalenessBudgetMs = Math.max(0, longSystemProperty(PROP_STALENESS_BUDGET_MS, DEFAULT_STALENESS_BUDGET_MS));
+
+        if (intervalMs <= 0) {
+            LOG.info("Market data refresher disabled ({}={})", PROP_INTERVAL_MS, intervalMs);
+            return;
+        }
+
+        timerService.createIntervalTimer(intervalMs, intervalMs, new TimerConfig("market-data-refresh", false));
+        LOG.info("Market data refresher started: intervalMs={}, batchSize={}, stalenessBudgetMs={}",
+                intervalMs, batchSize, stalenessBudgetMs);
+    }
+
+    // No transaction: each batch is a separate adapter call, a failing one must not doom the rest
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    void refresh() {
+        // Skip a tick if the previous refresh is still running (slow exchange)
+        if (!running.compareAndSet(false, true)) return;
+
+        long start = System.currentTimeMillis();
+        try {
+            List<String> symbols = em.createQuery(
+                            "SELECT DISTINCT s.symbol FROM DepotPositionEntity p JOIN p.stock s", String.class)
+                    .getResultList();
+            quoteCache.ensureQuoteCapacity(symbols.size());
+
+            for (int from = 0; from < symbols.size(); from += batchSize) {
+                List<String> batch = symbols.subList(from, Math.min(from + batchSize, symbols.size()));
+                try {
+                    tradingAdapter.refreshStockQuotes(batch);
+                } catch (RuntimeException e) {
+                    failureCount.incrementAndGet();
+                    LOG.warn("Market data refresh failed for {} symbols: {}", batch.size(), e.getMessage());
+                }
+            }
+
+            long staleness = -1;
+            for (String symbol : symbols) {
+                staleness = Math.max(staleness, quoteCache.getAgeMillis(symbol));
+            }
+
+            lastSymbolCount = symbols.size();
+            maxStalenessMs = staleness;
+            refreshCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failureCount.incrementAndGet();
+            LOG.warn("Market data refresh failed: {}", e.getMessage());
+        } finally {
+            lastRefreshFinishedAt = System.currentTimeMillis();
+            lastRefreshDurationMs = lastRefreshFinishedAt - start;
+            running.set(false);
+        }
+
+        LOG.debug("Market data refresh: symbols={}, durationMs={}, maxStalenessMs={}",
+                lastSymbolCount, lastRefreshDurationMs, maxStalenessMs);
+    }
+
+    /**
+     * Maximum age of cached prices accepted for depot valuation.
+     */
+    public long getStalenessBudgetMs() {
+        return stalenessBudgetMs;
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /** Duration of the last refresh run in milliseconds, -1 if none has run yet. */
+    public long getLastRefreshDurationMs() {
+        return lastRefreshDurationMs;
+    }
+
+    /** Time the last refresh run finished (epoch millis), -1 if none has run yet. */
+    public long getLastRefreshFinishedAt() {
+        return lastRefreshFinishedAt;
+    }
+
+    /** Number of distinct held symbols in the last refresh run. */
+    public int getLastSymbolCount() {
+        return lastSymbolCount;
+    }
+
+    /** Age of the oldest held-symbol price after the last refresh run, -1 if unknown. */
+    public long getMaxStalenessMs() {
+        return maxStalenessMs;
+    }
+
+    private long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.List;
+import net.froihofer.dsfinance.bank.api.DepotServiceLocal;
+import net.froihofer.dsfinance.bank.entity.CustomerEntity;
+import net.froihofer.dsfinance.bank.entity.DepotPositionEntity;
+
+/**
+ * Short database transactions around a buy/sell order.
+ *
+ * The order pipeline in {@link EmployeeBankServiceBean} reserves the shares of a sell order here,
+ * calls the exchange outside of any transaction and then settles or compensates here.
+ * Bank volume is reserved in memory by {@link BankVolumeEngineBean}.
+ * Every method runs in its own transaction (REQUIRES_NEW), so no connection or row lock is held
+ * while the exchange call is in flight.
+ */
+@Stateless
+@RolesAllowed("employee")
+@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+public class OrderSettlementBean {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @EJB
+    private DepotServiceLocal depotService;
+
+    /**
+     * Books an executed buy order: adds the position to the customer's depot.
+     */
+    public void settleBuy(long customerId, String symbol, int quantity, BigDecimal executionPrice) {
+        depotService.addStockPosition(customerId, symbol, quantity, executionPrice);
+    }
+
+    /**
+     * Takes the shares out of the customer's depot before a sell order is sent.
+     *
+     * @return Average purchase price of the position, needed to restore it
+     * @throws IllegalArgumentException if the customer does not hold enough shares
+     */
+    public BigDecimal reserveShares(long customerId, String symbol, int quantity) {
+        // Lock the customer first, so the position read below is the one that is reserved
+        CustomerEntity customer = em.find(CustomerEntity.class, customerId, LockModeType.PESSIMISTIC_WRITE);
+        if (customer == null || customer.getDepot() == null) {
+            throw new IllegalArgumentException("Customer has no portfolio");
+        }
+
+        List<DepotPositionEntity> positions = em.createNamedQuery("DepotPosition.findByDepotAndSymbol", DepotPositionEntity.class)
+                .setParameter("depotId", customer.getDepot().getId())
+                .setParameter("symbol", symbol)
+                .getResultList();
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException(
+                "Insufficient shares of " + symbol + " to sell. Requested: " + quantity
+            );
+        }
+        BigDecimal averagePrice = positions.get(0).getAveragePurchasePrice();
+
+        depotService.removeStockPosition(customerId, symbol, quantity);
+        return averagePrice;
+    }
+
+    /**
+     * Puts reserved shares back, e.g. after the exchange rejected the sell order.
+     * Restoring at the original average price leaves the position's average unchanged.
+     */
+    public void releaseShares(long customerId, String symbol, int quantity, BigDecimal averagePrice) {
+        depotService.addStockPosition(customerId, symbol, quantity, averagePrice);
+    }
+}
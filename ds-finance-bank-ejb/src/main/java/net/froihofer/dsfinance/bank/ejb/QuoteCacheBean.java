@@ -0,0 +1,305 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-JVM cache for stock quotes, shared by all trading related beans.
+ * Quotes are keyed by normalized symbol, search results by normalized query.
+ *
+ * Entries are considered fresh for {@code trading.cache.ttlMs} milliseconds (default 30 s).
+ * Both maps are bounded by {@code trading.cache.maxSize} entries (default 1000) and evict
+ * the least recently used entry when full. The quote map grows beyond that limit if more symbols
+ * are held in depots, see {@link #ensureQuoteCapacity(int)}, but never beyond
+ * {@code trading.cache.maxHeldSymbols} entries (default 10000); with more held symbols, a refresh
+ * evicts some of the quotes it loaded, which is logged as a warning.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class QuoteCacheBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuoteCacheBean.class);
+
+    private static final String PROP_TTL_MS = "trading.cache.ttlMs";
+    private static final String PROP_MAX_SIZE = "trading.cache.maxSize";
+    private static final String PROP_MAX_HELD_SYMBOLS = "trading.cache.maxHeldSymbols";
+
+    private static final long DEFAULT_TTL_MS = 30_000;
+    private static final int DEFAULT_MAX_SIZE = 1000;
+    private static final int DEFAULT_MAX_HELD_SYMBOLS = 10_000;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long ttlMs;
+    private int maxSize;
+    private int maxHeldSymbols;
+    // Max. number of quotes: maxSize, or the number of held symbols if that is larger (up to maxHeldSymbols)
+    private volatile int quoteCapacity;
+    // Held symbols reported when the capacity last changed or was found too small, to log each change once
+    private int reportedSymbols;
+
+    // Access-ordered maps: iteration order = least recently used first
+    private Map<String, CachedQuote> quotes;
+    private Map<String, CachedSearch> searches;
+
+    @PostConstruct
+    void init() {
+        ttlMs = Math.max(0, longSystemProperty(PROP_TTL_MS, DEFAULT_TTL_MS));
+        maxSize = (int) Math.max(1, longSystemProperty(PROP_MAX_SIZE, DEFAULT_MAX_SIZE));
+        maxHeldSymbols = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(maxSize, longSystemProperty(PROP_MAX_HELD_SYMBOLS, DEFAULT_MAX_HELD_SYMBOLS)));
+        quoteCapacity = maxSize;
+        quotes = new BoundedLruMap<>(() -> quoteCapacity);
+        searches = new BoundedLruMap<>(() -> maxSize);
+        LOG.info("Quote cache initialized: ttlMs={}, maxSize={}, maxHeldSymbols={}", ttlMs, maxSize, maxHeldSymbols);
+    }
+
+    /**
+     * Returns the cached quote for a symbol if it is still fresh.
+     *
+     * @param symbol Stock symbol (case-insensitive)
+     * @return Cached quote or null on a miss
+     */
+    public StockQuoteDTO get(String symbol) {
+        return get(symbol, ttlMs);
+    }
+
+    /**
+     * Returns the cached quote for a symbol if it is not older than the given age.
+     * Used by readers that accept a longer staleness budget than the default TTL.
+     *
+     * @param symbol Stock symbol (case-insensitive)
+     * @param maxAgeMs Maximum accepted age in milliseconds
+     * @return Cached quote or null on a miss
+     */
+    public StockQuoteDTO get(String symbol, long maxAgeMs) {
+        String key = normalizeSymbol(symbol);
+        if (key == null) return null;
+
+        CachedQuote entry;
+        synchronized (quotes) {
+            entry = quotes.get(key);
+        }
+        if (entry != null && ageOf(entry.storedAt) <= maxAgeMs) {
+            hits.incrementAndGet();
+            return entry.quote;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores a quote under its (normalized) symbol. Quotes without symbol or price are ignored.
+     */
+    public void put(StockQuoteDTO quote) {
+        if (quote == null || quote.getLastTradePrice() == null) return;
+        String key = normalizeSymbol(quote.getSymbol());
+        if (key == null) return;
+
+        CachedQuote entry = new CachedQuote(quote, System.currentTimeMillis());
+        synchronized (quotes) {
+            quotes.put(key, entry);
+        }
+    }
+
+    public void putAll(Collection<StockQuoteDTO> quotes) {
+        if (quotes == null) return;
+        for (StockQuoteDTO q : quotes) {
+            put(q);
+        }
+    }
+
+    /**
+     * Returns the cached result of a company name search if it is still fresh.
+     *
+     * @param query Search query (case-insensitive)
+     * @return Copy of the cached result or null on a miss
+     */
+    public List<StockQuoteDTO> getSearchResult(String query) {
+        return getSearchResult(query, ttlMs);
+    }
+
+    /**
+     * Returns the cached result of a company name search if it is not older than the given age.
+     *
+     * @param query Search query (case-insensitive)
+     * @param maxAgeMs Maximum accepted age in milliseconds
+     * @return Copy of the cached result or null on a miss
+     */
+    public List<StockQuoteDTO> getSearchResult(String query, long maxAgeMs) {
+        String key = normalizeQuery(query);
+
+        CachedSearch entry;
+        synchronized (searches) {
+            entry = searches.get(key);
+        }
+        if (entry != null && ageOf(entry.storedAt) <= maxAgeMs) {
+            hits.incrementAndGet();
+            return new ArrayList<>(entry.result);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the result of a company name search and all contained quotes.
+     */
+    public void putSearchResult(String query, List<StockQuoteDTO> result) {
+        if (result == null) return;
+
+        CachedSearch entry = new CachedSearch(List.copyOf(result), System.currentTimeMillis());
+        synchronized (searches) {
+            searches.put(normalizeQuery(query), entry);
+        }
+        putAll(result);
+    }
+
+    /**
+     * Age of the cached quote for a symbol, without counting as a hit or miss.
+     *
+     * @return Age in milliseconds or -1 if the symbol is not cached
+     */
+    public long getAgeMillis(String symbol) {
+        String key = normalizeSymbol(symbol);
+        if (key == null) return -1;
+
+        CachedQuote entry;
+        synchronized (quotes) {
+            entry = quotes.get(key);
+        }
+        return (entry == null) ? -1 : ageOf(entry.storedAt);
+    }
+
+    /**
+     * Lets the quote map hold at least the given number of quotes. Called by the
+     * {@link MarketDataRefresherBean} with the number of held symbols before every refresh:
+     * with more held symbols than maxSize, each refresh would evict the quotes it had just loaded.
+     * Grows to at most maxHeldSymbols entries; a warning is logged whenever the map grows and
+     * whenever the number of held symbols beyond that ceiling changes.
+     */
+    public synchronized void ensureQuoteCapacity(int symbols) {
+        int capacity = Math.min(maxHeldSymbols, Math.max(maxSize, symbols));
+        if (symbols > maxHeldSymbols) {
+            if (symbols != reportedSymbols) {
+                LOG.warn("{} held symbols exceed {}={}, the quote cache holds {} entries and a refresh evicts"
+                        + " quotes it loaded", symbols, PROP_MAX_HELD_SYMBOLS, maxHeldSymbols, capacity);
+                reportedSymbols = symbols;
+            }
+        } else if (capacity > quoteCapacity) {
+            LOG.warn("{} held symbols exceed {}={}, growing the quote cache to {} entries",
+                    symbols, PROP_MAX_SIZE, maxSize, capacity);
+            reportedSymbols = symbols;
+        } else {
+            reportedSymbols = 0;
+        }
+        quoteCapacity = capacity;
+    }
+
+    public int getQuoteCapacity() {
+        return quoteCapacity;
+    }
+
+    public long getTtlMillis() {
+        return ttlMs;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (quotes) {
+            return quotes.size();
+        }
+    }
+
+    private long ageOf(long storedAt) {
+        return System.currentTimeMillis() - storedAt;
+    }
+
+    private String normalizeSymbol(String symbol) {
+        if (symbol == null) return null;
+        String s = symbol.trim();
+        return s.isEmpty() ? null : s.toUpperCase(Locale.ROOT);
+    }
+
+    private String normalizeQuery(String query) {
+        return (query == null) ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static final class CachedQuote {
+        private final StockQuoteDTO quote;
+        private final long storedAt;
+
+        private CachedQuote(StockQuoteDTO quote, long storedAt) {
+            this.quote = quote;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private static final class CachedSearch {
+        private final List<StockQuoteDTO> result;
+        private final long storedAt;
+
+        private CachedSearch(List<StockQuoteDTO> result, long storedAt) {
+            this.result = result;
+            this.storedAt = storedAt;
+        }
+    }
+
+    /**
+     * LinkedHashMap in access order that drops the least recently used entry once the limit is exceeded.
+     */
+    private final class BoundedLruMap<V> extends LinkedHashMap<String, V> {
+
+        private final IntSupplier limit;
+
+        private BoundedLruMap(IntSupplier limit) {
+            super(16, 0.75f, true);
+            this.limit = limit;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            if (size() > limit.getAsInt()) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
+import net.froihofer.dsfinance.bank.entity.QuoteEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local price history, stored in the STOCK_QUOTE table.
+ *
+ * Every quote received from the exchange is handed to {@link #record}, which only queues it:
+ * the rows are inserted in batches of {@code trading.history.batchSize} (default 500) by a timer
+ * every {@code trading.history.flushIntervalMs} milliseconds (default 2000), off the request path.
+ * Repeated observations of the same trade (same symbol and trade time) are stored once. At most
+ * {@code trading.history.maxQueue} quotes (default 10000) are queued, further ones are dropped.
+ *
+ * The read methods serve last-known prices and price-at-time lookups without asking the exchange.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrationBean")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class QuoteHistoryBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuoteHistoryBean.class);
+
+    private static final String PROP_FLUSH_INTERVAL_MS = "trading.history.flushIntervalMs";
+    private static final String PROP_BATCH_SIZE = "trading.history.batchSize";
+    private static final String PROP_MAX_QUEUE = "trading.history.maxQueue";
+
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 2_000;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_MAX_QUEUE = 10_000;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Resource
+    private TimerService timerService;
+
+    private int batchSize;
+    private int maxQueue;
+
+    private final Queue<QuoteEntity> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // Last queued observation per symbol, to skip repeated observations of the same trade
+    private final ConcurrentHashMap<String, Observation> lastQueued = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        long intervalMs = Math.max(100, longSystemProperty(PROP_FLUSH_INTERVAL_MS, DEFAULT_FLUSH_INTERVAL_MS));
+        batchSize = (int) Math.max(1, longSystemProperty(PROP_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        maxQueue = (int) Math.max(1, longSystemProperty(PROP_MAX_QUEUE, DEFAULT_MAX_QUEUE));
+
+        timerService.createIntervalTimer(intervalMs, intervalMs, new TimerConfig("quote-history-flush", false));
+        LOG.info("Quote history started: flushIntervalMs={}, batchSize={}, maxQueue={}", intervalMs, batchSize, maxQueue);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    /**
+     * Queues the quotes for insertion. Never blocks and never touches the database.
+     * Quotes without symbol or price are ignored.
+     */
+    public void record(Collection<StockQuoteDTO> quotes) {
+        if (quotes == null) return;
+
+        Date now = new Date();
+        for (StockQuoteDTO q : quotes) {
+            String sym = normalizeSymbol(q == null ? null : q.getSymbol());
+            if (sym == null || q.getLastTradePrice() == null) continue;
+
+            Observation obs = new Observation(q.getLastTradeTime(), q.getLastTradePrice());
+            Observation previous = lastQueued.put(sym, obs);
+            if (obs.sameTradeAs(previous)) continue;
+
+            if (queued.incrementAndGet() > maxQueue) {
+                queued.decrementAndGet();
+                dropped.incrementAndGet();
+                // Not queued after all: the next identical observation must not count as a duplicate
+                if (previous != null) {
+                    lastQueued.replace(sym, obs, previous);
+                } else {
+                    lastQueued.remove(sym, obs);
+                }
+                continue;
+            }
+            Date tradeTime = (q.getLastTradeTime() != null) ? q.getLastTradeTime() : now;
+            queue.add(new QuoteEntity(sym, q.getLastTradePrice(), tradeTime, q.getExchange(),
+                    q.getMarketCapitalization(), now));
+        }
+    }
+
+    public void record(StockQuoteDTO quote) {
+        if (quote != null) record(List.of(quote));
+    }
+
+    @Timeout
+    void flush() {
+        int count = 0;
+        QuoteEntity e;
+        try {
+            while ((e = queue.poll()) != null) {
+                queued.decrementAndGet();
+                em.persist(e);
+                if (++count % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            written.addAndGet(count);
+        } catch (RuntimeException ex) {
+            // The polled quotes are lost; history is best effort
+            LOG.warn("Writing {} history quotes failed: {}", count, ex.getMessage());
+            throw ex;
+        }
+        if (count > 0) LOG.debug("Quote history: {} quotes written", count);
+    }
+
+    /**
+     * Latest stored quote of a symbol.
+     *
+     * @return Quote or null if none is stored
+     */
+    public StockQuoteDTO getLatest(String symbol) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null) return null;
+
+        List<QuoteEntity> rows = em.createNamedQuery("Quote.findLatestBySymbol", QuoteEntity.class)
+                .setParameter("symbol", sym)
+                .setMaxResults(1)
+                .getResultList();
+        return rows.isEmpty() ? null : toDto(rows.get(0));
+    }
+
+    /**
+     * Price of a symbol at the given time, i.e. of the last trade at or before it.
+     *
+     * @return Price or null if no earlier quote is stored
+     */
+    public BigDecimal getPriceAt(String symbol, Date time) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null || time == null) return null;
+
+        List<QuoteEntity> rows = em.createNamedQuery("Quote.findBySymbolAtTime", QuoteEntity.class)
+                .setParameter("symbol", sym)
+                .setParameter("time", time)
+                .setMaxResults(1)
+                .getResultList();
+        return rows.isEmpty() ? null : rows.get(0).getPrice();
+    }
+
+    /**
+     * Stored quotes of a symbol in [from, to), oldest first.
+     */
+    public List<StockQuoteDTO> getHistory(String symbol, Date from, Date to) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null || from == null || to == null) return List.of();
+
+        List<QuoteEntity> rows = em.createNamedQuery("Quote.findBySymbolBetween", QuoteEntity.class)
+                .setParameter("symbol", sym)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+        List<StockQuoteDTO> out = new ArrayList<>(rows.size());
+        for (QuoteEntity row : rows) {
+            out.add(toDto(row));
+        }
+        return out;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getQueueSize() {
+        return queued.get();
+    }
+
+    private StockQuoteDTO toDto(QuoteEntity e) {
+        StockQuoteDTO dto = new StockQuoteDTO(e.getSymbol(), null, e.getPrice(), null, e.getExchange());
+        dto.setLastTradeTime(e.getTradeTime());
+        dto.setMarketCapitalization(e.getMarketCapitalization());
+        return dto;
+    }
+
+    private String normalizeSymbol(String symbol) {
+        if (symbol == null) return null;
+        String s = symbol.trim();
+        return s.isEmpty() ? null : s.toUpperCase(Locale.ROOT);
+    }
+
+    private long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static final class Observation {
+        private final Date tradeTime;
+        private final BigDecimal price;
+
+        private Observation(Date tradeTime, BigDecimal price) {
+            this.tradeTime = tradeTime;
+            this.price = price;
+        }
+
+        // Without a trade time from the exchange, an unchanged price counts as the same trade
+        private boolean sameTradeAs(Observation other) {
+            if (other == null) return false;
+            if (tradeTime != null) return tradeTime.equals(other.tradeTime);
+            return other.tradeTime == null && price.compareTo(other.price) == 0;
+        }
+    }
+}
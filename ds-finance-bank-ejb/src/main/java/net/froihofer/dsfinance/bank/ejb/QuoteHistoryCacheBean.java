@@ -0,0 +1,207 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import net.froihofer.dsfinance.bank.dto.QuoteHistoryInterval;
+import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-JVM cache of exchange quote histories, per symbol.
+ *
+ * The full history of a symbol is downloaded once (and again after
+ * {@code trading.historyCache.fullRefreshMs}, default 24 h). In between, each request only
+ * appends the current quote if it is newer than the last cached point; the current quote is
+ * usually served by the {@link QuoteCacheBean}. At most {@code trading.historyCache.maxSymbols}
+ * histories (default 200) are kept, least recently used ones are dropped.
+ *
+ * Ranges can be downsampled to hourly or daily buckets, so clients do not receive
+ * thousands of points for a chart.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class QuoteHistoryCacheBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuoteHistoryCacheBean.class);
+
+    private static final String PROP_MAX_SYMBOLS = "trading.historyCache.maxSymbols";
+    private static final String PROP_FULL_REFRESH_MS = "trading.historyCache.fullRefreshMs";
+
+    private static final int DEFAULT_MAX_SYMBOLS = 200;
+    private static final long DEFAULT_FULL_REFRESH_MS = 24L * 60 * 60 * 1000;
+
+    // Coalescer key prefix, keeps history downloads apart from quote lookups
+    private static final String HISTORY_KEY_PREFIX = "history:";
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+
+    @EJB
+    private TradingServiceAdapterBean tradingAdapter;
+
+    @EJB
+    private QuoteRequestCoalescerBean coalescer;
+
+    private int maxSymbols;
+    private long fullRefreshMs;
+
+    // Access-ordered: iteration order = least recently used first
+    private Map<String, SymbolHistory> histories;
+
+    @PostConstruct
+    void init() {
+        maxSymbols = (int) Math.max(1, longSystemProperty(PROP_MAX_SYMBOLS, DEFAULT_MAX_SYMBOLS));
+        fullRefreshMs = Math.max(0, longSystemProperty(PROP_FULL_REFRESH_MS, DEFAULT_FULL_REFRESH_MS));
+        histories = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SymbolHistory> eldest) {
+                return size() > maxSymbols;
+            }
+        };
+    }
+
+    /**
+     * Quote history of a symbol within [from, to), oldest first.
+     *
+     * @param symbol Stock symbol (case-insensitive)
+     * @param from Start of the range, null for unbounded
+     * @param to End of the range (exclusive), null for unbounded
+     * @param interval Bucket size; null or RAW returns every point
+     * @return Quotes with lastTradeTime set; for buckets the last quote of each bucket
+     * @throws RuntimeException if the history has to be downloaded and the WS call fails
+     */
+    public List<StockQuoteDTO> getHistory(String symbol, Date from, Date to, QuoteHistoryInterval interval) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null) throw new IllegalArgumentException("Symbol must not be blank");
+
+        List<StockQuoteDTO> out = new ArrayList<>();
+        Object currentBucket = null;
+        for (StockQuoteDTO point : currentPoints(sym)) {
+            Date t = point.getLastTradeTime();
+            if (from != null && t.before(from)) continue;
+            if (to != null && !t.before(to)) break;
+
+            Object bucket = bucketOf(t, interval);
+            if (bucket != null && bucket.equals(currentBucket)) {
+                // Same bucket: the later point replaces the earlier one
+                out.set(out.size() - 1, point);
+            } else {
+                out.add(point);
+                currentBucket = bucket;
+            }
+        }
+        return out;
+    }
+
+    private List<StockQuoteDTO> currentPoints(String sym) {
+        SymbolHistory h;
+        synchronized (histories) {
+            h = histories.get(sym);
+        }
+        if (h == null || System.currentTimeMillis() - h.downloadedAt > fullRefreshMs) {
+            // Concurrent first requests for a symbol share one download
+            return coalescer.execute(HISTORY_KEY_PREFIX + sym, () -> download(sym)).points;
+        }
+        return appendLatest(sym, h).points;
+    }
+
+    private SymbolHistory download(String sym) {
+        List<StockQuoteDTO> points = new ArrayList<>();
+        for (StockQuoteDTO q : tradingAdapter.getStockQuoteHistory(sym)) {
+            if (q != null && q.getLastTradeTime() != null && q.getLastTradePrice() != null) {
+                points.add(q);
+            }
+        }
+        points.sort(Comparator.comparing(StockQuoteDTO::getLastTradeTime));
+
+        SymbolHistory h = new SymbolHistory(List.copyOf(points), System.currentTimeMillis());
+        synchronized (histories) {
+            histories.put(sym, h);
+        }
+        LOG.debug("Quote history of {} downloaded: {} points", sym, points.size());
+        return h;
+    }
+
+    private SymbolHistory appendLatest(String sym, SymbolHistory h) {
+        StockQuoteDTO latest;
+        try {
+            latest = tradingAdapter.getStockQuote(sym);
+        } catch (RuntimeException e) {
+            // Serve what we have
+            return h;
+        }
+        if (latest == null || latest.getLastTradeTime() == null || latest.getLastTradePrice() == null) return h;
+        if (!h.points.isEmpty() && !latest.getLastTradeTime().after(h.lastTradeTime())) return h;
+
+        synchronized (histories) {
+            SymbolHistory current = histories.get(sym);
+            if (current == null) current = h;
+            // Another request may have appended it already
+            if (!current.points.isEmpty() && !latest.getLastTradeTime().after(current.lastTradeTime())) {
+                return current;
+            }
+            List<StockQuoteDTO> points = new ArrayList<>(current.points.size() + 1);
+            points.addAll(current.points);
+            points.add(latest);
+            SymbolHistory appended = new SymbolHistory(List.copyOf(points), current.downloadedAt);
+            histories.put(sym, appended);
+            return appended;
+        }
+    }
+
+    private Object bucketOf(Date t, QuoteHistoryInterval interval) {
+        if (interval == null) return null;
+        switch (interval) {
+            case HOURLY:
+                return t.getTime() / HOUR_MS;
+            case DAILY:
+                return t.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            default:
+                return null;
+        }
+    }
+
+    private String normalizeSymbol(String symbol) {
+        if (symbol == null) return null;
+        String s = symbol.trim();
+        return s.isEmpty() ? null : s.toUpperCase(Locale.ROOT);
+    }
+
+    private long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static final class SymbolHistory {
+        // Sorted by trade time, immutable
+        private final List<StockQuoteDTO> points;
+        private final long downloadedAt;
+
+        private SymbolHistory(List<StockQuoteDTO> points, long downloadedAt) {
+            this.points = Objects.requireNonNull(points);
+            this.downloadedAt = downloadedAt;
+        }
+
+        private Date lastTradeTime() {
+            return points.get(points.size() - 1).getLastTradeTime();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Single-flight layer for remote quote lookups.
+ *
+ * Concurrent requests for the same key (a search query or a symbol) share one in-flight call:
+ * the first caller executes it on its own thread, all others wait for and receive its result.
+ * Nothing is cached once the call has finished - that is the job of {@link QuoteCacheBean}.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class QuoteRequestCoalescerBean {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Executes the call unless an identical one (same key) is already running,
+     * in which case its result is awaited and returned instead.
+     *
+     * @param key Identity of the request
+     * @param call Remote call, executed at most once for all concurrent callers
+     * @return Result of the (shared) call
+     * @throws RuntimeException if the call failed
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> call) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return (T) await(existing);
+        }
+
+        executed.incrementAndGet();
+        try {
+            T result = call.call();
+            mine.complete(result);
+            return result;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw asRuntimeException(e);
+        } catch (Error e) {
+            // Joiners wait without a timeout, so they must see this failure too
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Batch variant of {@link #execute}: keys already in flight are awaited, the remaining keys
+     * are fetched with a single call of {@code fetch} on the current thread.
+     *
+     * @param keys Identities of the requested items
+     * @param fetch Remote call for the keys this caller is responsible for
+     * @return Results keyed like the input; keys without result are missing
+     * @throws RuntimeException if the own or a shared call failed
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Map<String, V> executeAll(Collection<String> keys, Function<List<String>, Map<String, V>> fetch) {
+        Map<String, CompletableFuture<Object>> owned = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> joined = new LinkedHashMap<>();
+
+        for (String key : keys) {
+            CompletableFuture<Object> mine = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+            if (existing == null) {
+                owned.put(key, mine);
+            } else {
+                joined.put(key, existing);
+            }
+        }
+
+        Map<String, V> out = new LinkedHashMap<>();
+
+        if (!owned.isEmpty()) {
+            executed.incrementAndGet();
+            try {
+                Map<String, V> fetched = fetch.apply(new ArrayList<>(owned.keySet()));
+                for (Map.Entry<String, CompletableFuture<Object>> e : owned.entrySet()) {
+                    V value = (fetched == null) ? null : fetched.get(e.getKey());
+                    e.getValue().complete(value);
+                    if (value != null) out.put(e.getKey(), value);
+                }
+            } catch (RuntimeException | Error e) {
+                // Joiners wait without a timeout, so every owned key must fail, not only on exceptions
+                owned.values().forEach(f -> f.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+
+        for (Map.Entry<String, CompletableFuture<Object>> e : joined.entrySet()) {
+            coalesced.incrementAndGet();
+            V value = (V) await(e.getValue());
+            if (value != null) out.put(e.getKey(), value);
+        }
+
+        return out;
+    }
+
+    /** Number of remote calls actually executed. */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /** Number of requests that were served by another caller's in-flight call. */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw asRuntimeException(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private RuntimeException asRuntimeException(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        return new RuntimeException(t.getMessage(), t);
+    }
+}
@@ -0,0 +1,173 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJBException;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Brings the database schema up to date at deployment, before any other startup bean uses it.
+ *
+ * The schema is defined by the versioned SQL scripts in META-INF/db/migration
+ * ({@code V<version>__<description>.sql}); the versions already applied are recorded in the
+ * SCHEMA_VERSION table, so every script runs exactly once per database. Hibernate no longer
+ * creates or inspects the schema ({@code hibernate.hbm2ddl.auto=none}).
+ *
+ * To change the schema, add a new script with the next version to {@link #MIGRATIONS} and
+ * adjust the entity mapping to match; never edit a script that has been deployed.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionManagement(TransactionManagementType.BEAN)
+public class SchemaMigrationBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaMigrationBean.class);
+
+    private static final String SCRIPT_LOCATION = "/META-INF/db/migration/";
+
+    // All migrations in version order
+    static final List<String> MIGRATIONS = List.of(
+            "V1__baseline.sql",
+            "V2__depot_position_constraints.sql",
+            "V3__bank_volume_journal.sql",
+            "V4__fold_bank_volume_stripes.sql");
+
+    @Resource(lookup = "java:/datasources/DsFinanceBankDS")
+    private DataSource dataSource;
+
+    @PostConstruct
+    void init() {
+        try (Connection connection = dataSource.getConnection()) {
+            int applied = migrate(connection, MIGRATIONS);
+            LOG.info("Schema migration: {} of {} scripts applied, schema at version {}",
+                    applied, MIGRATIONS.size(), currentVersion(connection));
+        } catch (SQLException | IOException e) {
+            throw new EJBException("Schema migration failed", e);
+        }
+    }
+
+    /**
+     * Applies the given scripts that are newer than the recorded schema version, each in its own
+     * transaction together with its SCHEMA_VERSION row.
+     *
+     * @return Number of scripts applied
+     */
+    int migrate(Connection connection, List<String> scripts) throws SQLException, IOException {
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(true);
+            try (Statement st = connection.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS SCHEMA_VERSION ("
+                        + "version INTEGER NOT NULL PRIMARY KEY, "
+                        + "script VARCHAR(255) NOT NULL, "
+                        + "installedOn TIMESTAMP NOT NULL)");
+            }
+
+            int current = currentVersion(connection);
+            int applied = 0;
+            connection.setAutoCommit(false);
+            for (String script : scripts) {
+                int version = versionOf(script);
+                if (version <= current) continue;
+
+                apply(connection, script, version);
+                current = version;
+                applied++;
+            }
+            return applied;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void apply(Connection connection, String script, int version) throws SQLException, IOException {
+        LOG.info("Schema migration: applying {}", script);
+        try (Statement st = connection.createStatement()) {
+            for (String sql : statements(read(script))) {
+                st.execute(sql);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO SCHEMA_VERSION (version, script, installedOn) VALUES (?, ?, ?)")) {
+                ps.setInt(1, version);
+                ps.setString(2, script);
+                ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                ps.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            // DDL may already have been committed implicitly, which is why the scripts only
+            // create what does not exist yet and can be run again after the cause is fixed
+            connection.rollback();
+            throw new SQLException("Migration " + script + " failed", e);
+        }
+    }
+
+    private int currentVersion(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MAX(version) FROM SCHEMA_VERSION")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private int versionOf(String script) {
+        int end = script.indexOf("__");
+        if (!script.startsWith("V") || end < 2) {
+            throw new IllegalArgumentException("Not a versioned migration script: " + script);
+        }
+        return Integer.parseInt(script.substring(1, end));
+    }
+
+    private String read(String script) throws IOException {
+        try (InputStream in = SchemaMigrationBean.class.getResourceAsStream(SCRIPT_LOCATION + script)) {
+            if (in == null) {
+                throw new IOException("Migration script not found: " + SCRIPT_LOCATION + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Statements of a script: separated by a semicolon at the end of a line, "--" comment lines skipped.
+     */
+    private List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+
+            if (current.length() > 0) current.append('\n');
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(trimmed);
+            }
+        }
+        if (current.length() > 0) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,191 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
+import net.froihofer.dsfinance.bank.entity.StockEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Directory of the STOCK table (symbol -> id and company name), shared by all beans.
+ *
+ * All stored stocks are loaded at startup, and stocks inserted later are added once their
+ * transaction has committed, so resolving a symbol never needs a database round trip.
+ * New symbols of a search result are written with one {@code IN} lookup and a single flush,
+ * in a transaction of their own.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrationBean")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class StockDirectoryBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockDirectoryBean.class);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
+    // Committed stocks by normalized symbol
+    private final Map<String, Entry> bySymbol = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        List<Object[]> rows = em.createQuery(
+                        "SELECT s.id, s.symbol, s.companyName FROM StockEntity s", Object[].class)
+                .getResultList();
+        for (Object[] row : rows) {
+            put((Long) row[0], (String) row[1], (String) row[2]);
+        }
+        LOG.info("Stock directory loaded: {} symbols", bySymbol.size());
+    }
+
+    /**
+     * Id of the stored stock with the given symbol, or null if the symbol is not stored.
+     */
+    public Long findId(String symbol) {
+        Entry e = get(symbol);
+        return (e == null) ? null : e.id;
+    }
+
+    /**
+     * Company name stored for the symbol, or null if the symbol or its company name is not stored.
+     */
+    public String findCompanyName(String symbol) {
+        Entry e = get(symbol);
+        return (e == null || isBlank(e.companyName)) ? null : e.companyName;
+    }
+
+    /**
+     * Adds a stock persisted in the caller's transaction. It becomes visible to other lookups
+     * when that transaction commits and is dropped if it rolls back.
+     */
+    public void registered(StockEntity stock) {
+        if (stock == null || stock.getId() == null) return;
+        afterCommit(List.of(stock));
+    }
+
+    /**
+     * Stores symbol and company name of the given quotes: creates missing stocks and fills in
+     * missing company names. Runs in its own transaction, so a failure (e.g. a concurrent insert
+     * of the same symbol) never affects the caller's transaction.
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void registerAll(Collection<StockQuoteDTO> quotes) {
+        if (quotes == null || quotes.isEmpty()) return;
+
+        Map<String, String> candidates = new LinkedHashMap<>();
+        for (StockQuoteDTO q : quotes) {
+            String symbol = normalizeSymbol(q == null ? null : q.getSymbol());
+            if (symbol == null || findCompanyName(symbol) != null) continue;
+
+            String companyName = (q.getCompanyName() != null) ? q.getCompanyName().trim() : null;
+            candidates.putIfAbsent(symbol, companyName);
+        }
+        if (candidates.isEmpty()) return;
+
+        List<StockEntity> existing = em.createQuery(
+                        "SELECT s FROM StockEntity s WHERE s.symbol IN :symbols", StockEntity.class)
+                .setParameter("symbols", candidates.keySet())
+                .getResultList();
+
+        List<StockEntity> touched = new ArrayList<>(existing);
+        for (StockEntity stock : existing) {
+            String companyName = candidates.remove(stock.getSymbol());
+            // Update companyName if we have a better one
+            if (isBlank(stock.getCompanyName()) && !isBlank(companyName)) {
+                stock.setCompanyName(companyName);
+            }
+        }
+
+        for (Map.Entry<String, String> e : candidates.entrySet()) {
+            StockEntity stock = new StockEntity(e.getKey(), e.getValue());
+            em.persist(stock);
+            touched.add(stock);
+        }
+
+        em.flush();
+        afterCommit(touched);
+    }
+
+    /**
+     * Number of symbols in the directory.
+     */
+    public int size() {
+        return bySymbol.size();
+    }
+
+    private void afterCommit(List<StockEntity> stocks) {
+        // Copy now: the entities must not be read after their persistence context is gone
+        List<Object[]> rows = new ArrayList<>(stocks.size());
+        for (StockEntity s : stocks) {
+            rows.add(new Object[] {s.getId(), s.getSymbol(), s.getCompanyName()});
+        }
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) return;
+                for (Object[] row : rows) {
+                    put((Long) row[0], (String) row[1], (String) row[2]);
+                }
+            }
+        });
+    }
+
+    private void put(Long id, String symbol, String companyName) {
+        String sym = normalizeSymbol(symbol);
+        if (id == null || sym == null) return;
+        bySymbol.put(sym, new Entry(id, companyName));
+    }
+
+    private Entry get(String symbol) {
+        String sym = normalizeSymbol(symbol);
+        return (sym == null) ? null : bySymbol.get(sym);
+    }
+
+    private boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private String normalizeSymbol(String symbol) {
+        if (symbol == null) return null;
+        String s = symbol.trim();
+        return s.isEmpty() ? null : s.toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String companyName;
+
+        private Entry(long id, String companyName) {
+            this.id = id;
+            this.companyName = companyName;
+        }
+    }
+}
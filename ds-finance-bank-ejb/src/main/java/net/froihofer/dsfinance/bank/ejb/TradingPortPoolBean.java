@@ -0,0 +1,396 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.xml.ws.BindingProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import net.froihofer.dsfinance.ws.trading.api.TradingWebService;
+import net.froihofer.dsfinance.ws.trading.api.TradingWebServiceService;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.transport.common.gzip.GZIPInInterceptor;
+import org.apache.cxf.transport.common.gzip.GZIPOutInterceptor;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Application-wide pool of fully configured TradingWebService ports.
+ *
+ * Creating a port parses the WSDL and sets up the HTTP conduit, which is too slow to do on the
+ * first call of every new bean instance. The pool is split into two partitions that never lend
+ * ports to each other: {@code trading.ws.poolSize} ports (default 8) for quote and search calls
+ * and {@code trading.ws.orderPoolSize} ports (default 4) for buy and sell orders, so quote traffic
+ * can never take the ports orders need. All ports are created at deployment; each call checks out
+ * a port exclusively, so a conduit is never used by two threads at the same time. If all ports of
+ * a partition are busy, callers wait up to {@code trading.ws.poolCheckoutTimeoutMs} (default 5 s).
+ * Since every port has one request in flight at most, the sum of both sizes is also the upper
+ * bound for connections to the exchange.
+ *
+ * HTTP tuning ({@code trading.ws.*}): connectTimeoutMs (5000), receiveTimeoutMs (15000),
+ * keepAlive (true), gzip responses (true), gzipRequests (false) above gzipThreshold bytes (1024),
+ * tlsSessionReuse (true: one TLS session cache for all ports, false: one per port) with
+ * tlsSessionTimeoutSec (3600). The exchange's certificate is checked against trustStore
+ * (a keystore file of the JVM's default type, opened with trustStorePassword) if set, otherwise
+ * against the JVM's default trust store.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class TradingPortPoolBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TradingPortPoolBean.class);
+
+    // System properties (set on the WildFly JVM)
+    private static final String PROP_USER = "trading.ws.user";
+    private static final String PROP_PASS = "trading.ws.pass";
+    private static final String PROP_ENDPOINT = "trading.ws.endpoint";
+    private static final String PROP_POOL_SIZE = "trading.ws.poolSize";
+    private static final String PROP_ORDER_POOL_SIZE = "trading.ws.orderPoolSize";
+    private static final String PROP_CHECKOUT_TIMEOUT_MS = "trading.ws.poolCheckoutTimeoutMs";
+    private static final String PROP_CONNECT_TIMEOUT_MS = "trading.ws.connectTimeoutMs";
+    private static final String PROP_RECEIVE_TIMEOUT_MS = "trading.ws.receiveTimeoutMs";
+    private static final String PROP_KEEP_ALIVE = "trading.ws.keepAlive";
+    private static final String PROP_GZIP = "trading.ws.gzip";
+    private static final String PROP_GZIP_REQUESTS = "trading.ws.gzipRequests";
+    private static final String PROP_GZIP_THRESHOLD = "trading.ws.gzipThreshold";
+    private static final String PROP_TLS_SESSION_REUSE = "trading.ws.tlsSessionReuse";
+    private static final String PROP_TLS_SESSION_TIMEOUT_SEC = "trading.ws.tlsSessionTimeoutSec";
+    private static final String PROP_TRUST_STORE = "trading.ws.trustStore";
+    private static final String PROP_TRUST_STORE_PASSWORD = "trading.ws.trustStorePassword";
+
+    private static final int DEFAULT_POOL_SIZE = 8;
+    private static final int DEFAULT_ORDER_POOL_SIZE = 4;
+    private static final long DEFAULT_CHECKOUT_TIMEOUT_MS = 5_000;
+    private static final long DEFAULT_CONNECT_TIMEOUT_MS = 5_000;
+    private static final long DEFAULT_RECEIVE_TIMEOUT_MS = 15_000;
+    private static final long DEFAULT_GZIP_THRESHOLD = 1024;
+    private static final long DEFAULT_TLS_SESSION_TIMEOUT_SEC = 3600;
+
+    // Default endpoint (SOAP address, NOT ?wsdl)
+    private static final String DEFAULT_ENDPOINT =
+            "https://edu.dedisys.org/ds-finance/ws/TradingService";
+
+    // Recommended: place the WSDL into resources so build+runtime do NOT depend on fetching the WSDL over HTTP.
+    // Path: ds-finance-bank-ejb/src/main/resources/META-INF/wsdl-consumed/TradingService.wsdl
+    private static final String CLASSPATH_WSDL = "META-INF/wsdl-consumed/TradingService.wsdl";
+
+    /**
+     * A call against a checked-out port.
+     */
+    @FunctionalInterface
+    public interface PortCall<T> {
+        T call(TradingWebService port) throws Exception;
+    }
+
+    private long checkoutTimeoutMs;
+
+    private SSLContext sharedSslContext;
+
+    private Partition quotes;
+    private Partition orders;
+
+    @PostConstruct
+    void init() {
+        checkoutTimeoutMs = Math.max(0, longSystemProperty(PROP_CHECKOUT_TIMEOUT_MS, DEFAULT_CHECKOUT_TIMEOUT_MS));
+        sharedSslContext = booleanSystemProperty(PROP_TLS_SESSION_REUSE, true) ? createSslContext() : null;
+        quotes = new Partition("quotes", (int) Math.max(1, longSystemProperty(PROP_POOL_SIZE, DEFAULT_POOL_SIZE)));
+        orders = new Partition("orders", (int) Math.max(1, longSystemProperty(PROP_ORDER_POOL_SIZE, DEFAULT_ORDER_POOL_SIZE)));
+
+        // Pre-warm; a missing configuration must not fail the deployment
+        try {
+            quotes.prewarm();
+            orders.prewarm();
+            LOG.info("Trading port pool initialized with {} of {} quote ports and {} of {} order ports",
+                    quotes.created.get(), quotes.size, orders.created.get(), orders.size);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not pre-warm trading port pool, ports will be created on demand: {}", e.getMessage());
+        }
+    }
+
+    /** Ports for quote, search and history calls. */
+    public Partition quotes() {
+        return quotes;
+    }
+
+    /** Ports for buy and sell orders. */
+    public Partition orders() {
+        return orders;
+    }
+
+    /**
+     * A fixed number of ports reserved for one kind of call.
+     */
+    public final class Partition {
+
+        private final String name;
+        private final int size;
+        private final BlockingQueue<TradingWebService> idle;
+        private final AtomicInteger created = new AtomicInteger();
+
+        // Metrics
+        private final AtomicLong checkouts = new AtomicLong();
+        private final AtomicLong checkoutTimeouts = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private Partition(String name, int size) {
+            this.name = name;
+            this.size = size;
+            this.idle = new ArrayBlockingQueue<>(size);
+        }
+
+        private void prewarm() {
+            for (int i = 0; i < size; i++) {
+                TradingWebService p = tryCreatePort();
+                if (p == null) break;
+                idle.offer(p);
+            }
+        }
+
+        /**
+         * Checks out a port, runs the call and returns the port to the pool.
+         *
+         * @throws Exception whatever the call throws (e.g. TradingWSException_Exception)
+         * @throws TradingResilienceBean.RejectedException if no port becomes available within the checkout timeout
+         */
+        public <T> T execute(PortCall<T> call) throws Exception {
+            TradingWebService p = checkout();
+            try {
+                return call.call(p);
+            } finally {
+                release(p);
+            }
+        }
+
+        /**
+         * Checks out a port for exclusive use. Must be returned with {@link #release}.
+         *
+         * @throws TradingResilienceBean.RejectedException if no port becomes available within the checkout
+         *         timeout; the exchange was not called, so this is no sign of an outage
+         */
+        public TradingWebService checkout() {
+            long start = System.nanoTime();
+            TradingWebService p = idle.poll();
+            if (p == null) {
+                p = tryCreatePort();
+            }
+            if (p == null) {
+                try {
+                    p = idle.poll(checkoutTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            long waited = System.nanoTime() - start;
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            if (p == null) {
+                checkoutTimeouts.incrementAndGet();
+                throw new TradingResilienceBean.RejectedException("No TradingService " + name + " port available within "
+                        + checkoutTimeoutMs + " ms (pool size " + size + ")");
+            }
+            checkouts.incrementAndGet();
+            return p;
+        }
+
+        public void release(TradingWebService p) {
+            // Capacity equals the number of ports ever created, so this never rejects a pooled port
+            if (p != null) idle.offer(p);
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getIdleCount() {
+            return idle.size();
+        }
+
+        public long getCheckoutCount() {
+            return checkouts.get();
+        }
+
+        public long getCheckoutTimeoutCount() {
+            return checkoutTimeouts.get();
+        }
+
+        /** Average time spent waiting for a port in milliseconds. */
+        public double getAverageWaitMs() {
+            long n = checkouts.get() + checkoutTimeouts.get();
+            return (n == 0) ? 0 : totalWaitNanos.get() / (double) n / 1_000_000d;
+        }
+
+        /** Longest time spent waiting for a port in milliseconds. */
+        public double getMaxWaitMs() {
+            return maxWaitNanos.get() / 1_000_000d;
+        }
+
+        /**
+         * Creates a new port if the partition has not reached its size yet.
+         *
+         * @return New port or null if the partition is complete
+         */
+        private TradingWebService tryCreatePort() {
+            int n = created.incrementAndGet();
+            if (n > size) {
+                created.decrementAndGet();
+                return null;
+            }
+            try {
+                return createAndConfigurePort();
+            } catch (RuntimeException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private TradingWebService createAndConfigurePort() {
+        URL wsdl = Thread.currentThread().getContextClassLoader().getResource(CLASSPATH_WSDL);
+
+        // If WSDL is packaged locally: use it. Otherwise: fall back to generated default URL.
+        TradingWebServiceService service = (wsdl != null)
+                ? new TradingWebServiceService(wsdl)
+                : new TradingWebServiceService();
+
+        TradingWebService p = service.getTradingWebServicePort();
+        configureEndpointAndAuth(p);
+        return p;
+    }
+
+    private void configureEndpointAndAuth(TradingWebService p) {
+        String user = requiredSystemProperty(PROP_USER);
+        String pass = requiredSystemProperty(PROP_PASS);
+        String endpoint = System.getProperty(PROP_ENDPOINT, DEFAULT_ENDPOINT);
+
+        // Make sure we hit the SOAP endpoint (not necessarily what is stored in the WSDL)
+        ((BindingProvider) p).getRequestContext().put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, endpoint);
+
+        Client client = ClientProxy.getClient(p);
+        HTTPConduit conduit = (HTTPConduit) client.getConduit();
+
+        AuthorizationPolicy auth = new AuthorizationPolicy();
+        auth.setUserName(user);
+        auth.setPassword(pass);
+        auth.setAuthorizationType("Basic");
+        conduit.setAuthorization(auth);
+
+        HTTPClientPolicy http = new HTTPClientPolicy();
+        http.setConnectionTimeout(longSystemProperty(PROP_CONNECT_TIMEOUT_MS, DEFAULT_CONNECT_TIMEOUT_MS));
+        http.setReceiveTimeout(longSystemProperty(PROP_RECEIVE_TIMEOUT_MS, DEFAULT_RECEIVE_TIMEOUT_MS));
+        http.setAllowChunking(false);
+
+        // Persistent connections: each pooled port keeps its connection open between calls
+        http.setConnection(booleanSystemProperty(PROP_KEEP_ALIVE, true)
+                ? ConnectionType.KEEP_ALIVE
+                : ConnectionType.CLOSE);
+
+        // Search responses can be large: let the exchange compress them
+        if (booleanSystemProperty(PROP_GZIP, true)) {
+            http.setAcceptEncoding("gzip;q=1.0, identity;q=0.5");
+            client.getInInterceptors().add(new GZIPInInterceptor());
+        }
+        if (booleanSystemProperty(PROP_GZIP_REQUESTS, false)) {
+            GZIPOutInterceptor gzipOut = new GZIPOutInterceptor();
+            gzipOut.setThreshold((int) longSystemProperty(PROP_GZIP_THRESHOLD, DEFAULT_GZIP_THRESHOLD));
+            client.getOutInterceptors().add(gzipOut);
+        }
+        conduit.setClient(http);
+
+        // With session reuse all ports share one SSLContext and therefore one TLS session cache, so a new
+        // connection resumes an existing session instead of doing a full handshake
+        if (endpoint.regionMatches(true, 0, "https:", 0, 6)) {
+            SSLContext ssl = (sharedSslContext != null) ? sharedSslContext : createSslContext();
+            if (ssl != null) {
+                TLSClientParameters tls = conduit.getTlsClientParameters();
+                if (tls == null) tls = new TLSClientParameters();
+                tls.setSslContext(ssl);
+                conduit.setTlsClientParameters(tls);
+            }
+        }
+    }
+
+    /**
+     * @return New SSLContext with its own session cache, or null to use the JVM default
+     */
+    private SSLContext createSslContext() {
+        try {
+            SSLContext ctx = SSLContext.getInstance("TLS");
+            ctx.init(null, trustManagers(), null);
+            ctx.getClientSessionContext().setSessionTimeout(
+                    (int) longSystemProperty(PROP_TLS_SESSION_TIMEOUT_SEC, DEFAULT_TLS_SESSION_TIMEOUT_SEC));
+            return ctx;
+        } catch (GeneralSecurityException | IOException e) {
+            LOG.warn("Could not create SSLContext, using the JVM default: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return Trust managers for the configured trust store, or null for the JVM default
+     */
+    private TrustManager[] trustManagers() throws GeneralSecurityException, IOException {
+        String path = System.getProperty(PROP_TRUST_STORE);
+        if (path == null || path.isBlank()) return null;
+
+        String password = System.getProperty(PROP_TRUST_STORE_PASSWORD, "");
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream in = Files.newInputStream(Paths.get(path.trim()))) {
+            trustStore.load(in, password.toCharArray());
+        }
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(trustStore);
+        return tmf.getTrustManagers();
+    }
+
+    private String requiredSystemProperty(String name) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) {
+            throw new IllegalStateException(
+                    "Missing required system property '" + name + "'. " +
+                            "Set it on the WildFly JVM, e.g. -D" + name + "=..."
+            );
+        }
+        return v.trim();
+    }
+
+    private boolean booleanSystemProperty(String name, boolean defaultValue) {
+        String v = System.getProperty(name);
+        return (v == null || v.isBlank()) ? defaultValue : Boolean.parseBoolean(v.trim());
+    }
+
+    private long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.froihofer.dsfinance.ws.trading.api.TradingWSException_Exception;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breakers and bulkheads around the exchange web service.
+ *
+ * Quote reads and buy/sell orders are guarded separately and use separate partitions of the
+ * {@link TradingPortPoolBean}, so a market-data brownout cannot use up the threads, ports or
+ * breaker state needed for order execution.
+ *
+ * Each guard has
+ * - a bulkhead: at most {@code trading.bulkhead.quotes} / {@code trading.bulkhead.orders} concurrent
+ *   calls (default and upper limit: the number of ports of the partition, so a call that got a permit
+ *   never waits for a port); further callers wait up to {@code trading.bulkhead.maxWaitMs}
+ *   (default 100) and are then rejected,
+ * - a circuit breaker over the last {@code trading.cb.windowSize} calls (default 20, evaluated after
+ *   {@code trading.cb.minCalls}, default 10): it opens when the failure rate reaches
+ *   {@code trading.cb.failureRatePercent} (default 50) or the rate of calls slower than
+ *   {@code trading.cb.slowCallMs} (default 3000) reaches {@code trading.cb.slowCallRatePercent}
+ *   (default 50). After {@code trading.cb.openMs} (default 30000) it lets
+ *   {@code trading.cb.halfOpenCalls} (default 3) probe calls through and closes again if they succeed.
+ *
+ * Domain errors reported by the exchange (TradingWSException) mean the service is up and
+ * do not count as failures; calls rejected before they reach the exchange (e.g. no free port)
+ * do not count at all.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class TradingResilienceBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TradingResilienceBean.class);
+
+    @EJB
+    private TradingPortPoolBean ports;
+
+    private Guard quotes;
+    private Guard orders;
+
+    @PostConstruct
+    void init() {
+        quotes = new Guard("quotes", bulkheadSize("trading.bulkhead.quotes", ports.quotes().getSize()));
+        orders = new Guard("orders", bulkheadSize("trading.bulkhead.orders", ports.orders().getSize()));
+    }
+
+    /** Guard for quote and search calls. */
+    public Guard quotes() {
+        return quotes;
+    }
+
+    /** Guard for buy and sell orders. */
+    public Guard orders() {
+        return orders;
+    }
+
+    /**
+     * Configured bulkhead size, at most the number of ports the calls can use.
+     */
+    private static int bulkheadSize(String property, int ports) {
+        long configured = longSystemProperty(property, ports);
+        if (configured > ports) {
+            LOG.warn("{}={} exceeds the {} ports of its pool partition, using {}", property, configured, ports, ports);
+            return ports;
+        }
+        return (int) configured;
+    }
+
+    private static long longSystemProperty(String name, long defaultValue) {
+        String v = System.getProperty(name);
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Thrown when a call is rejected by an open circuit breaker, a full bulkhead or
+     * an exhausted port pool, i.e. before it reached the exchange.
+     */
+    public static class RejectedException extends IllegalStateException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Bulkhead plus circuit breaker for one kind of call.
+     */
+    public static final class Guard {
+
+        private final String name;
+        private final Semaphore bulkhead;
+        private final long maxWaitMs;
+
+        private final int windowSize;
+        private final int minCalls;
+        private final int failureRatePercent;
+        private final long slowCallNanos;
+        private final int slowCallRatePercent;
+        private final long openNanos;
+        private final int halfOpenCalls;
+
+        // Ring buffer of the last outcomes, guarded by "this"
+        private final boolean[] failed;
+        private final boolean[] slow;
+        private int recorded;
+        private int next;
+
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int probesStarted;
+        private int probesSucceeded;
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        private Guard(String name, int maxConcurrent) {
+            this.name = name;
+            this.bulkhead = new Semaphore(Math.max(1, maxConcurrent), true);
+            this.maxWaitMs = Math.max(0, longSystemProperty("trading.bulkhead.maxWaitMs", 100));
+            this.windowSize = (int) Math.max(1, longSystemProperty("trading.cb.windowSize", 20));
+            this.minCalls = (int) Math.min(windowSize, Math.max(1, longSystemProperty("trading.cb.minCalls", 10)));
+            this.failureRatePercent = (int) longSystemProperty("trading.cb.failureRatePercent", 50);
+            this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(longSystemProperty("trading.cb.slowCallMs", 3_000));
+            this.slowCallRatePercent = (int) longSystemProperty("trading.cb.slowCallRatePercent", 50);
+            this.openNanos = TimeUnit.MILLISECONDS.toNanos(longSystemProperty("trading.cb.openMs", 30_000));
+            this.halfOpenCalls = (int) Math.max(1, longSystemProperty("trading.cb.halfOpenCalls", 3));
+            this.failed = new boolean[windowSize];
+            this.slow = new boolean[windowSize];
+        }
+
+        /**
+         * Runs the call if breaker and bulkhead allow it and records its outcome.
+         *
+         * @throws RejectedException if the breaker is open or the bulkhead is full
+         * @throws Exception whatever the call throws
+         */
+        public <T> T execute(Callable<T> call) throws Exception {
+            long start = begin();
+            try {
+                T result = call.call();
+                onSuccess(start);
+                return result;
+            } catch (TradingWSException_Exception e) {
+                // The exchange answered - a domain error is no sign of an outage
+                onSuccess(start);
+                throw e;
+            } catch (RejectedException e) {
+                // No port available - the exchange was not called
+                onNotCalled();
+                throw e;
+            } catch (Exception e) {
+                onFailure(start);
+                throw e;
+            }
+        }
+
+        /**
+         * Acquires permission for a call. Every successful begin must be followed by
+         * exactly one {@link #onSuccess}, {@link #onFailure} or {@link #onNotCalled}.
+         *
+         * @return Start timestamp to pass to onSuccess/onFailure
+         * @throws RejectedException if the breaker is open or the bulkhead is full
+         */
+        public long begin() {
+            if (!allowCall()) {
+                rejected.incrementAndGet();
+                throw new RejectedException("TradingService " + name + " circuit is open - failing fast");
+            }
+            boolean acquired;
+            try {
+                acquired = bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                releaseProbe();
+                rejected.incrementAndGet();
+                throw new RejectedException("TradingService " + name + " bulkhead is full - failing fast");
+            }
+            return System.nanoTime();
+        }
+
+        public void onSuccess(long start) {
+            bulkhead.release();
+            record(false, System.nanoTime() - start >= slowCallNanos);
+        }
+
+        public void onFailure(long start) {
+            bulkhead.release();
+            record(true, System.nanoTime() - start >= slowCallNanos);
+        }
+
+        /**
+         * Returns the permit of a call that never reached the exchange, without recording an outcome.
+         */
+        public void onNotCalled() {
+            bulkhead.release();
+            releaseProbe();
+        }
+
+        public synchronized String getState() {
+            return state.name();
+        }
+
+        public long getRejectedCount() {
+            return rejected.get();
+        }
+
+        public int getAvailablePermits() {
+            return bulkhead.availablePermits();
+        }
+
+        private synchronized boolean allowCall() {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openNanos) return false;
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+                LOG.info("TradingService {} circuit half-open, probing", name);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= halfOpenCalls) return false;
+                probesStarted++;
+            }
+            return true;
+        }
+
+        private synchronized void releaseProbe() {
+            if (state == State.HALF_OPEN && probesStarted > 0) probesStarted--;
+        }
+
+        private synchronized void record(boolean failure, boolean slowCall) {
+            if (state == State.HALF_OPEN) {
+                if (failure || slowCall) {
+                    open();
+                } else if (++probesSucceeded >= halfOpenCalls) {
+                    state = State.CLOSED;
+                    recorded = 0;
+                    next = 0;
+                    LOG.info("TradingService {} circuit closed", name);
+                }
+                return;
+            }
+            if (state == State.OPEN) return;
+
+            failed[next] = failure;
+            slow[next] = slowCall;
+            next = (next + 1) % windowSize;
+            if (recorded < windowSize) recorded++;
+            if (recorded < minCalls) return;
+
+            int failures = 0;
+            int slowCalls = 0;
+            for (int i = 0; i < recorded; i++) {
+                if (failed[i]) failures++;
+                if (slow[i]) slowCalls++;
+            }
+            if (failures * 100 >= failureRatePercent * recorded
+                    || slowCalls * 100 >= slowCallRatePercent * recorded) {
+                open();
+            }
+        }
+
+        private void open() {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            LOG.warn("TradingService {} circuit opened for {} ms", name, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        }
+    }
+}
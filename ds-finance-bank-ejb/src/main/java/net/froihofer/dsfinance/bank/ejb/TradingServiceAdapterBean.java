@@ -1,59 +1,94 @@
 package net.froihofer.dsfinance.bank.ejb;
 
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
-import jakarta.xml.ws.BindingProvider;
-import java.net.URL;
+import jakarta.xml.ws.AsyncHandler;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
+import net.froihofer.dsfinance.ws.trading.api.BuyResponse;
+import net.froihofer.dsfinance.ws.trading.api.FindStockQuotesByCompanyNameResponse;
+import net.froihofer.dsfinance.ws.trading.api.GetStockQuotesResponse;
 import net.froihofer.dsfinance.ws.trading.api.PublicStockQuote;
+import net.froihofer.dsfinance.ws.trading.api.SellResponse;
 import net.froihofer.dsfinance.ws.trading.api.TradingWSException_Exception;
 import net.froihofer.dsfinance.ws.trading.api.TradingWebService;
-import net.froihofer.dsfinance.ws.trading.api.TradingWebServiceService;
-import org.apache.cxf.configuration.security.AuthorizationPolicy;
-import org.apache.cxf.endpoint.Client;
-import org.apache.cxf.frontend.ClientProxy;
-import org.apache.cxf.transport.http.HTTPConduit;
-import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.NoResultException;
-import jakarta.persistence.PersistenceContext;
-import net.froihofer.dsfinance.bank.entity.StockEntity;
 
 
 @Stateless
 @RolesAllowed({"employee", "customer"})
 public class TradingServiceAdapterBean {
 
-    @PersistenceContext
-    private EntityManager em;
+    @EJB
+    private QuoteCacheBean quoteCache;
 
+    @EJB
+    private QuoteRequestCoalescerBean coalescer;
+
+    @EJB
+    private TradingPortPoolBean ports;
+
+    @EJB
+    private TradingResilienceBean resilience;
+
+    @EJB
+    private QuoteHistoryBean history;
+
+    @EJB
+    private StockDirectoryBean stockDirectory;
 
     private static final Logger LOG = LoggerFactory.getLogger(TradingServiceAdapterBean.class);
 
     // System properties (set on the WildFly JVM)
-    private static final String PROP_USER = "trading.ws.user";
-    private static final String PROP_PASS = "trading.ws.pass";
-    private static final String PROP_ENDPOINT = "trading.ws.endpoint";
+    private static final String PROP_BATCH_SIZE = "trading.ws.batchSize";
 
-    // Default endpoint (SOAP address, NOT ?wsdl)
-    private static final String DEFAULT_ENDPOINT =
-            "https://edu.dedisys.org/ds-finance/ws/TradingService";
+    // Max. number of symbols sent in one getStockQuotes request
+    private static final int DEFAULT_BATCH_SIZE = 50;
 
-    // Recommended: place the WSDL into resources so build+runtime do NOT depend on fetching the WSDL over HTTP.
-    // Path: ds-finance-bank-ejb/src/main/resources/META-INF/wsdl-consumed/TradingService.wsdl
-    private static final String CLASSPATH_WSDL = "META-INF/wsdl-consumed/TradingService.wsdl";
-
-    private volatile TradingWebService port;
+    // Coalescer keys: symbols are used as-is, search queries get this prefix
+    private static final String QUERY_KEY_PREFIX = "query:";
 
     public List<StockQuoteDTO> findStockQuotesByCompanyName(String companyNameQuery) {
         String q = (companyNameQuery == null) ? "" : companyNameQuery.trim();
 
+        List<StockQuoteDTO> cached = quoteCache.getSearchResult(q);
+        if (cached != null) return cached;
+
+        try {
+            // Concurrent identical searches share one remote call
+            List<StockQuoteDTO> result = coalescer.execute(
+                    QUERY_KEY_PREFIX + q.toLowerCase(Locale.ROOT), () -> searchRemote(q));
+            return new ArrayList<>(result);
+        } catch (RuntimeException e) {
+            // Exchange unavailable (or circuit open): an old result is better than none
+            List<StockQuoteDTO> stale = quoteCache.getSearchResult(q, Long.MAX_VALUE);
+            if (stale == null) throw e;
+            LOG.warn("Serving stale search result for query='{}': {}", q, e.getMessage());
+            return stale;
+        }
+    }
+
+    private List<StockQuoteDTO> searchRemote(String q) {
         try {
-            List<PublicStockQuote> quotes = getPort().findStockQuotesByCompanyName(q);
+            List<PublicStockQuote> quotes = resilience.quotes().execute(
+                    () -> ports.quotes().execute(p -> p.findStockQuotesByCompanyName(q)));
             if (quotes == null) return List.of();
 
             List<StockQuoteDTO> out = new ArrayList<>(quotes.size());
@@ -61,12 +96,19 @@ public class TradingServiceAdapterBean {
                 out.add(toDto(wsQuote));
             }
 
-            // Cache symbol -> companyName in DB (best effort)
+            quoteCache.putSearchResult(q, out);
+            history.record(out);
+
+            // Cache symbol -> companyName in DB (best effort, skips symbols already stored)
             cacheStocks(out);
 
             return out;
 
 
+        } catch (TradingResilienceBean.RejectedException e) {
+            // Failing fast on purpose - no stack trace per rejected call
+            LOG.warn("TradingService call rejected for query='{}': {}", q, e.getMessage());
+            throw e;
         } catch (TradingWSException_Exception e) {
             LOG.warn("TradingService returned a domain error for query='{}': {}", q, e.getMessage());
             throw new RuntimeException("TradingService call failed: " + e.getMessage(), e);
@@ -76,117 +118,213 @@ public class TradingServiceAdapterBean {
         }
     }
 
-    private void cacheStocks(List<StockQuoteDTO> quotes) {
-        if (quotes == null || quotes.isEmpty()) return;
-
-        for (StockQuoteDTO q : quotes) {
-            if (q == null) continue;
-
-            String symbol = normalizeSymbol(q.getSymbol());
-            if (symbol == null) continue;
+    /**
+     * Fetches current quotes for several symbols at once.
+     * Fresh quotes are served from the {@link QuoteCacheBean}; only the remaining symbols are
+     * requested via getStockQuotes, in chunks of {@code trading.ws.batchSize} (default 50), so valuing
+     * a whole depot costs one (or a few) remote calls instead of one search per position.
+     *
+     * @param symbols Stock symbols (case-insensitive, duplicates are ignored)
+     * @return Quotes keyed by normalized (upper case) symbol; symbols unknown to the exchange are missing
+     * @throws RuntimeException if the WS call fails
+     */
+    public Map<String, StockQuoteDTO> getStockQuotes(Collection<String> symbols) {
+        return getStockQuotes(symbols, quoteCache.getTtlMillis());
+    }
 
-            String companyName = (q.getCompanyName() != null) ? q.getCompanyName().trim() : null;
+    /**
+     * Like {@link #getStockQuotes(Collection)}, but accepts cached quotes up to the given age.
+     * Used for depot valuation, where the {@link MarketDataRefresherBean} keeps held symbols warm.
+     *
+     * @param symbols Stock symbols (case-insensitive, duplicates are ignored)
+     * @param maxAgeMs Maximum accepted age of cached quotes in milliseconds
+     * @return Quotes keyed by normalized (upper case) symbol; symbols unknown to the exchange are missing
+     * @throws RuntimeException if the WS call fails
+     */
+    public Map<String, StockQuoteDTO> getStockQuotes(Collection<String> symbols, long maxAgeMs) {
+        Set<String> wanted = normalizeSymbols(symbols);
+        if (wanted.isEmpty()) return Map.of();
+
+        Map<String, StockQuoteDTO> out = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String sym : wanted) {
+            StockQuoteDTO cached = quoteCache.get(sym, maxAgeMs);
+            if (cached != null) {
+                out.put(sym, cached);
+            } else {
+                missing.add(sym);
+            }
+        }
 
+        if (!missing.isEmpty()) {
             try {
-                StockEntity existing = em.createQuery(
-                                "SELECT s FROM StockEntity s WHERE s.symbol = :symbol", StockEntity.class)
-                        .setParameter("symbol", symbol)
-                        .getSingleResult();
-
-                // Update companyName if we have a better one
-                if (companyName != null && !companyName.isBlank()) {
-                    if (existing.getCompanyName() == null || existing.getCompanyName().isBlank()) {
-                        existing.setCompanyName(companyName);
+                out.putAll(fetchAndCache(missing));
+            } catch (RuntimeException e) {
+                // Exchange unavailable (or circuit open): fall back to the last known prices
+                int staleCount = 0;
+                for (String sym : missing) {
+                    StockQuoteDTO stale = quoteCache.get(sym, Long.MAX_VALUE);
+                    if (stale != null) {
+                        out.put(sym, stale);
+                        staleCount++;
                     }
                 }
-            } catch (NoResultException e) {
-                // create new
-                StockEntity stock = new StockEntity(symbol, companyName);
-                em.persist(stock);
-            } catch (Exception ignored) {
-                // Best-effort only: never break the WS call due to caching issues
+                if (staleCount == 0) throw e;
+                LOG.warn("Serving {} stale quotes: {}", staleCount, e.getMessage());
             }
         }
+        return out;
     }
 
-    private String normalizeSymbol(String symbol) {
-        if (symbol == null) return null;
-        String s = symbol.trim();
-        return s.isEmpty() ? null : s.toUpperCase(java.util.Locale.ROOT);
+    /**
+     * Fetches quotes for the given symbols regardless of the cache and stores them in it.
+     * Called periodically by the {@link MarketDataRefresherBean}.
+     *
+     * @param symbols Stock symbols (case-insensitive, duplicates are ignored)
+     * @return Number of quotes received
+     * @throws RuntimeException if the WS call fails
+     */
+    public int refreshStockQuotes(Collection<String> symbols) {
+        Set<String> wanted = normalizeSymbols(symbols);
+        if (wanted.isEmpty()) return 0;
+        return fetchAndCache(new ArrayList<>(wanted)).size();
     }
 
+    private Map<String, StockQuoteDTO> fetchAndCache(List<String> symbols) {
+        // Symbols already requested by a concurrent caller are awaited, not fetched again
+        return coalescer.executeAll(symbols, toFetch -> {
+            Map<String, StockQuoteDTO> fetched = fetchStockQuotes(toFetch);
+            quoteCache.putAll(fetched.values());
+            history.record(fetched.values());
+            return fetched;
+        });
+    }
 
-    private TradingWebService getPort() {
-        TradingWebService p = port;
-        if (p != null) return p;
-
-        synchronized (this) {
-            if (port == null) {
-                port = createAndConfigurePort();
+    private Set<String> normalizeSymbols(Collection<String> symbols) {
+        Set<String> out = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                String sym = normalizeSymbol(symbol);
+                if (sym != null) out.add(sym);
             }
-            return port;
         }
+        return out;
+    }
+
+    /**
+     * Current quote for a single symbol, served from the cache when fresh.
+     *
+     * @param symbol Stock symbol (case-insensitive)
+     * @return Quote or null if the exchange does not know the symbol
+     * @throws RuntimeException if the WS call fails
+     */
+    public StockQuoteDTO getStockQuote(String symbol) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null) return null;
+        return getStockQuotes(List.of(sym)).get(sym);
     }
 
-    private TradingWebService createAndConfigurePort() {
-        URL wsdl = Thread.currentThread().getContextClassLoader().getResource(CLASSPATH_WSDL);
+    private Map<String, StockQuoteDTO> fetchStockQuotes(List<String> symbols) {
+        int batchSize = Math.max(1, intSystemProperty(PROP_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        Map<String, StockQuoteDTO> out = new LinkedHashMap<>();
 
-        // If WSDL is packaged locally: use it. Otherwise: fall back to generated default URL.
-        TradingWebServiceService service = (wsdl != null)
-                ? new TradingWebServiceService(wsdl)
-                : new TradingWebServiceService();
+        for (int from = 0; from < symbols.size(); from += batchSize) {
+            List<String> chunk = symbols.subList(from, Math.min(from + batchSize, symbols.size()));
+            try {
+                List<PublicStockQuote> quotes = resilience.quotes().execute(
+                        () -> ports.quotes().execute(p -> p.getStockQuotes(new ArrayList<>(chunk))));
+                if (quotes == null) continue;
 
-        TradingWebService p = service.getTradingWebServicePort();
-        configureEndpointAndAuth(p);
-        return p;
-    }
+                for (PublicStockQuote wsQuote : quotes) {
+                    String sym = (wsQuote == null) ? null : normalizeSymbol(wsQuote.getSymbol());
+                    if (sym != null) out.put(sym, toDto(wsQuote));
+                }
+            } catch (TradingResilienceBean.RejectedException e) {
+                LOG.warn("TradingService call rejected for symbols={}: {}", chunk, e.getMessage());
+                throw e;
+            } catch (TradingWSException_Exception e) {
+                LOG.warn("TradingService returned a domain error for symbols={}: {}", chunk, e.getMessage());
+                throw new RuntimeException("TradingService call failed: " + e.getMessage(), e);
+            } catch (Exception e) {
+                LOG.error("TradingService call failed for symbols={}", chunk, e);
+                throw new RuntimeException("TradingService call failed: " + e.getMessage(), e);
+            }
+        }
 
-    private void configureEndpointAndAuth(TradingWebService p) {
-        String user = requiredSystemProperty(PROP_USER);
-        String pass = requiredSystemProperty(PROP_PASS);
-        String endpoint = System.getProperty(PROP_ENDPOINT, DEFAULT_ENDPOINT);
+        return out;
+    }
 
-        // Make sure we hit the SOAP endpoint (not necessarily what is stored in the WSDL)
-        ((BindingProvider) p).getRequestContext().put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, endpoint);
+    /**
+     * Fetches the full quote history of a symbol (a few months) from the exchange.
+     * Not cached here - see {@link QuoteHistoryCacheBean}.
+     *
+     * @param symbol Stock symbol (case-insensitive)
+     * @return Historical quotes in the order delivered by the exchange
+     * @throws RuntimeException if the WS call fails
+     */
+    public List<StockQuoteDTO> getStockQuoteHistory(String symbol) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null) throw new IllegalArgumentException("Symbol must not be blank");
 
-        Client client = ClientProxy.getClient(p);
-        HTTPConduit conduit = (HTTPConduit) client.getConduit();
+        try {
+            List<PublicStockQuote> quotes = resilience.quotes().execute(
+                    () -> ports.quotes().execute(p -> p.getStockQuoteHistory(sym)));
+            return (quotes == null) ? List.of() : toDtos(quotes);
+        } catch (TradingResilienceBean.RejectedException e) {
+            LOG.warn("TradingService call rejected for history of {}: {}", sym, e.getMessage());
+            throw e;
+        } catch (TradingWSException_Exception e) {
+            LOG.warn("TradingService returned a domain error for history of {}: {}", sym, e.getMessage());
+            throw new RuntimeException("TradingService call failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LOG.error("TradingService call failed for history of {}", sym, e);
+            throw new RuntimeException("TradingService call failed: " + e.getMessage(), e);
+        }
+    }
 
-        AuthorizationPolicy auth = new AuthorizationPolicy();
-        auth.setUserName(user);
-        auth.setPassword(pass);
-        auth.setAuthorizationType("Basic");
-        conduit.setAuthorization(auth);
+    private void cacheStocks(List<StockQuoteDTO> quotes) {
+        try {
+            stockDirectory.registerAll(quotes);
+        } catch (RuntimeException e) {
+            // Best-effort only: never break the WS call due to caching issues
+            LOG.debug("Caching stocks failed: {}", e.getMessage());
+        }
+    }
 
-        HTTPClientPolicy http = new HTTPClientPolicy();
-        http.setConnectionTimeout(5_000);
-        http.setReceiveTimeout(15_000);
-        http.setAllowChunking(false);
-        conduit.setClient(http);
+    private String normalizeSymbol(String symbol) {
+        if (symbol == null) return null;
+        String s = symbol.trim();
+        return s.isEmpty() ? null : s.toUpperCase(Locale.ROOT);
     }
 
+
     private StockQuoteDTO toDto(PublicStockQuote q) {
         if (q == null) return new StockQuoteDTO(null, null, null);
 
         // Map the WS object onto your DTO
-        return new StockQuoteDTO(
+        StockQuoteDTO dto = new StockQuoteDTO(
                 q.getSymbol(),
                 q.getCompanyName(),
                 q.getLastTradePrice(),
                 null,                 // "change" not delivered by this WSDL -> keep null
                 q.getStockExchange()
         );
+        if (q.getLastTradeTime() != null) {
+            dto.setLastTradeTime(q.getLastTradeTime().toGregorianCalendar().getTime());
+        }
+        dto.setMarketCapitalization(q.getMarketCapitalization());
+        return dto;
     }
 
-    private String requiredSystemProperty(String name) {
+    private int intSystemProperty(String name, int defaultValue) {
         String v = System.getProperty(name);
-        if (v == null || v.isBlank()) {
-            throw new IllegalStateException(
-                    "Missing required system property '" + name + "'. " +
-                            "Set it on the WildFly JVM, e.g. -D" + name + "=..."
-            );
+        if (v == null || v.isBlank()) return defaultValue;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring invalid value '{}' for system property '{}', using {}", v, name, defaultValue);
+            return defaultValue;
         }
-        return v.trim();
     }
 
     // ==================== BUY / SELL via Stock Exchange WS ====================
@@ -212,7 +350,8 @@ public class TradingServiceAdapterBean {
 
         try {
             // Call the stock exchange WS to execute the buy order
-            java.math.BigDecimal executionPrice = getPort().buy(sym, shares);
+            java.math.BigDecimal executionPrice = resilience.orders().execute(
+                    () -> ports.orders().execute(p -> p.buy(sym, shares)));
             
             if (executionPrice == null) {
                 throw new RuntimeException("TradingService returned null price for BUY order");
@@ -253,7 +392,8 @@ public class TradingServiceAdapterBean {
 
         try {
             // Call the stock exchange WS to execute the sell order
-            java.math.BigDecimal executionPrice = getPort().sell(sym, shares);
+            java.math.BigDecimal executionPrice = resilience.orders().execute(
+                    () -> ports.orders().execute(p -> p.sell(sym, shares)));
             
             if (executionPrice == null) {
                 throw new RuntimeException("TradingService returned null price for SELL order");
@@ -272,4 +412,233 @@ public class TradingServiceAdapterBean {
             throw new RuntimeException("Stock exchange SELL order failed: " + e.getMessage(), e);
         }
     }
+
+    // ==================== ASYNC API ====================
+    // Non-blocking variants based on the JAX-WS async operations generated by CXF
+    // (see src/main/jaxws/trading-async-binding.xml). The calling thread returns immediately,
+    // the futures complete on CXF's response thread. Nothing in these paths touches the
+    // EntityManager, so they can safely complete outside the caller's transaction.
+
+    /**
+     * Asynchronous variant of {@link #findStockQuotesByCompanyName(String)}.
+     * Results are cached, but stock names are not written to the database.
+     */
+    public CompletableFuture<List<StockQuoteDTO>> findStockQuotesByCompanyNameAsync(String companyNameQuery) {
+        String q = (companyNameQuery == null) ? "" : companyNameQuery.trim();
+
+        List<StockQuoteDTO> cached = quoteCache.getSearchResult(q);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        return invokeAsync(resilience.quotes(), ports.quotes(), "TradingService call failed",
+                (p, handler) -> p.findStockQuotesByCompanyNameAsync(q, handler),
+                (FindStockQuotesByCompanyNameResponse res) -> {
+                    List<StockQuoteDTO> out = toDtos(res.getReturn());
+                    quoteCache.putSearchResult(q, out);
+                    history.record(out);
+                    return out;
+                });
+    }
+
+    /**
+     * Asynchronous variant of {@link #getStockQuotes(Collection)}.
+     * Chunks of missing symbols are requested in parallel.
+     */
+    public CompletableFuture<Map<String, StockQuoteDTO>> getStockQuotesAsync(Collection<String> symbols) {
+        Set<String> wanted = normalizeSymbols(symbols);
+
+        Map<String, StockQuoteDTO> out = new ConcurrentHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String sym : wanted) {
+            StockQuoteDTO cached = quoteCache.get(sym);
+            if (cached != null) {
+                out.put(sym, cached);
+            } else {
+                missing.add(sym);
+            }
+        }
+
+        int batchSize = Math.max(1, intSystemProperty(PROP_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            List<String> chunk = new ArrayList<>(missing.subList(from, Math.min(from + batchSize, missing.size())));
+            calls.add(invokeAsync(resilience.quotes(), ports.quotes(), "TradingService call failed",
+                    (p, handler) -> p.getStockQuotesAsync(chunk, handler),
+                    (GetStockQuotesResponse res) -> {
+                        for (StockQuoteDTO dto : toDtos(res.getReturn())) {
+                            String sym = normalizeSymbol(dto.getSymbol());
+                            if (sym == null) continue;
+                            quoteCache.put(dto);
+                            history.record(dto);
+                            out.put(sym, dto);
+                        }
+                        return null;
+                    }));
+        }
+
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    // Restore request order
+                    Map<String, StockQuoteDTO> ordered = new LinkedHashMap<>();
+                    for (String sym : wanted) {
+                        StockQuoteDTO q = out.get(sym);
+                        if (q != null) ordered.put(sym, q);
+                    }
+                    return ordered;
+                });
+    }
+
+    /**
+     * Asynchronous variant of {@link #getStockQuote(String)}.
+     */
+    public CompletableFuture<StockQuoteDTO> getStockQuoteAsync(String symbol) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null) return CompletableFuture.completedFuture(null);
+        return getStockQuotesAsync(List.of(sym)).thenApply(quotes -> quotes.get(sym));
+    }
+
+    /**
+     * Asynchronous variant of {@link #buy(String, int)}.
+     * The future completes with the execution price per share, or exceptionally if the order failed.
+     */
+    public CompletableFuture<java.math.BigDecimal> buyAsync(String symbol, int shares) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null || sym.isBlank()) {
+            throw new IllegalArgumentException("Symbol must not be blank");
+        }
+        if (shares <= 0) {
+            throw new IllegalArgumentException("Shares must be positive");
+        }
+
+        LOG.info("Executing async BUY order: {} shares of {}", shares, sym);
+        return invokeAsync(resilience.orders(), ports.orders(), "Stock exchange BUY order failed",
+                (p, handler) -> p.buyAsync(sym, shares, handler),
+                (BuyResponse res) -> {
+                    if (res.getReturn() == null) {
+                        throw new RuntimeException("TradingService returned null price for BUY order");
+                    }
+                    LOG.info("BUY order executed: {} shares of {} at {}", shares, sym, res.getReturn());
+                    return res.getReturn();
+                });
+    }
+
+    /**
+     * Asynchronous variant of {@link #sell(String, int)}.
+     * The future completes with the execution price per share, or exceptionally if the order failed.
+     */
+    public CompletableFuture<java.math.BigDecimal> sellAsync(String symbol, int shares) {
+        String sym = normalizeSymbol(symbol);
+        if (sym == null || sym.isBlank()) {
+            throw new IllegalArgumentException("Symbol must not be blank");
+        }
+        if (shares <= 0) {
+            throw new IllegalArgumentException("Shares must be positive");
+        }
+
+        LOG.info("Executing async SELL order: {} shares of {}", shares, sym);
+        return invokeAsync(resilience.orders(), ports.orders(), "Stock exchange SELL order failed",
+                (p, handler) -> p.sellAsync(sym, shares, handler),
+                (SellResponse res) -> {
+                    if (res.getReturn() == null) {
+                        throw new RuntimeException("TradingService returned null price for SELL order");
+                    }
+                    LOG.info("SELL order executed: {} shares of {} at {}", shares, sym, res.getReturn());
+                    return res.getReturn();
+                });
+    }
+
+    /**
+     * Starts an async JAX-WS invocation and adapts its AsyncHandler callback to a CompletableFuture.
+     * The call is subject to the given guard (circuit breaker and bulkhead) and the port stays
+     * checked out until the response has arrived.
+     *
+     * @param guard Circuit breaker and bulkhead for this kind of call
+     * @param partition Ports for this kind of call
+     * @param failureMessage Prefix of the exception message if the call fails
+     * @param call Starts the invocation on the given port with the given handler
+     * @param onResponse Maps the response wrapper; runs on the CXF response thread
+     */
+    private <R, T> CompletableFuture<T> invokeAsync(TradingResilienceBean.Guard guard,
+                                                    TradingPortPoolBean.Partition partition,
+                                                    String failureMessage,
+                                                    BiFunction<TradingWebService, AsyncHandler<R>, Future<?>> call,
+                                                    Function<R, T> onResponse) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long start;
+        try {
+            start = guard.begin();
+        } catch (TradingResilienceBean.RejectedException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        TradingWebService p;
+        try {
+            p = partition.checkout();
+        } catch (TradingResilienceBean.RejectedException e) {
+            // Pool exhausted - the exchange was not called
+            guard.onNotCalled();
+            LOG.warn("{}: {}", failureMessage, e.getMessage());
+            result.completeExceptionally(e);
+            return result;
+        } catch (Exception e) {
+            // e.g. missing credentials while creating the port
+            guard.onFailure(start);
+            LOG.error(failureMessage, e);
+            result.completeExceptionally(new RuntimeException(failureMessage + ": " + e.getMessage(), e));
+            return result;
+        }
+
+        // Returns the port and records the outcome (true = success); only the first call does so,
+        // whether it comes from the response handler or from a failure to start the invocation
+        AtomicBoolean finished = new AtomicBoolean();
+        Consumer<Boolean> finish = success -> {
+            if (!finished.compareAndSet(false, true)) return;
+            partition.release(p);
+            if (success) {
+                guard.onSuccess(start);
+            } else {
+                guard.onFailure(start);
+            }
+        };
+
+        try {
+            call.apply(p, response -> {
+                try {
+                    R value = response.get();
+                    finish.accept(true);
+                    result.complete(onResponse.apply(value));
+                } catch (ExecutionException e) {
+                    Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+                    // The exchange answered - a domain error is no sign of an outage
+                    finish.accept(cause instanceof TradingWSException_Exception);
+                    LOG.warn("{}: {}", failureMessage, cause.getMessage());
+                    result.completeExceptionally(new RuntimeException(failureMessage + ": " + cause.getMessage(), cause));
+                } catch (Exception e) {
+                    // e.g. CancellationException or InterruptedException, or onResponse failed
+                    if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                    LOG.warn("{}: {}", failureMessage, e.getMessage());
+                    result.completeExceptionally(new RuntimeException(failureMessage + ": " + e.getMessage(), e));
+                } finally {
+                    // No answer from the exchange (cancelled, interrupted or an Error)
+                    finish.accept(false);
+                }
+            });
+        } catch (Exception e) {
+            // The handler may already have run if the invocation failed after calling it
+            finish.accept(false);
+            LOG.error(failureMessage, e);
+            result.completeExceptionally(new RuntimeException(failureMessage + ": " + e.getMessage(), e));
+        }
+        return result;
+    }
+
+    private List<StockQuoteDTO> toDtos(List<PublicStockQuote> quotes) {
+        if (quotes == null) return List.of();
+
+        List<StockQuoteDTO> out = new ArrayList<>(quotes.size());
+        for (PublicStockQuote wsQuote : quotes) {
+            out.add(toDto(wsQuote));
+        }
+        return out;
+    }
 }
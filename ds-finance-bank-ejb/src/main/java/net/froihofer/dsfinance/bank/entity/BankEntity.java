@@ -7,6 +7,7 @@ import java.util.Date;
 
 @Entity
 @Table(name = "BANK")
+@Cacheable
 public class BankEntity implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,26 +27,19 @@ public class BankEntity implements Serializable {
     }
 
     /**
-     * Decreases the available investment volume.
+     * Decreases the available investment volume, below zero if need be.
+     * Only for amounts that are already spent (executed trades).
      * @param amount Amount to decrease
-     * @throws IllegalStateException if insufficient funds
      */
-    public void decreaseVolume(BigDecimal amount) {
+    public void overdraw(BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
-        
+
         if (this.availableVolume == null) {
             this.availableVolume = BigDecimal.ZERO;
         }
-        
-        if (this.availableVolume.compareTo(amount) < 0) {
-            throw new IllegalStateException(
-                "Insufficient bank investment volume. Available: " + 
-                this.availableVolume + ", Requested: " + amount
-            );
-        }
-        
+
         this.availableVolume = this.availableVolume.subtract(amount);
         this.lastUpdated = new Date();
     }
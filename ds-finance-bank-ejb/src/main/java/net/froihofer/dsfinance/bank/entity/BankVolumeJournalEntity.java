@@ -0,0 +1,60 @@
+package net.froihofer.dsfinance.bank.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * A settled change of the bank volume (positive = credit) that is not yet folded into the BANK row.
+ * Rows are only inserted, by the trade that causes the change, and deleted when the
+ * write-behind flush books them; the bank volume is the BANK row's volume plus these rows.
+ */
+@Entity
+@Table(name = "BANK_VOLUME_JOURNAL")
+@NamedQueries({
+    @NamedQuery(
+        name = "BankVolumeJournal.findAll",
+        query = "SELECT j FROM BankVolumeJournalEntity j ORDER BY j.id"
+    ),
+    @NamedQuery(
+        name = "BankVolumeJournal.sumAmount",
+        query = "SELECT SUM(j.amount) FROM BankVolumeJournalEntity j"
+    )
+})
+public class BankVolumeJournalEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "BANK_VOLUME_JOURNAL_SEQ")
+    @SequenceGenerator(name = "BANK_VOLUME_JOURNAL_SEQ", sequenceName = "BANK_VOLUME_JOURNAL_SEQ", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date createdAt;
+
+    public BankVolumeJournalEntity() {
+    }
+
+    public BankVolumeJournalEntity(BigDecimal amount) {
+        this.amount = amount;
+        this.createdAt = new Date();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+}
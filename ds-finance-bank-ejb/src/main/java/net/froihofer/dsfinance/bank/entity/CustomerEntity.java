@@ -4,12 +4,58 @@ import jakarta.persistence.*;
 import java.io.Serializable;
 
 @Entity
-@Table(name = "CUSTOMER")
-@NamedQuery(
-        name = "Customer.findByName",
-        query = "SELECT c FROM CustomerEntity c WHERE c.firstName LIKE :first AND c.lastName LIKE :last"
-)
+@Table(name = "CUSTOMER", indexes = {
+    @Index(name = "IDX_CUSTOMER_NAME", columnList = "lastNameNormalized, firstNameNormalized")
+})
+@Cacheable
+@NamedQueries({
+    // Read paths select straight into CustomerDTO, so no entity (and no depot) is loaded for them.
+    // Not cached: the whole customer list would only fill the query cache
+    @NamedQuery(
+        name = "Customer.findAll",
+        query = CustomerEntity.SELECT_DTO + " ORDER BY c.lastNameNormalized, c.firstNameNormalized, c.id"
+    ),
+    @NamedQuery(
+        name = "Customer.findByIds",
+        query = CustomerEntity.SELECT_DTO + " WHERE c.id IN :ids"
+    ),
+    @NamedQuery(
+        name = "Customer.findWithoutNormalizedName",
+        query = "SELECT c FROM CustomerEntity c WHERE (c.firstName IS NOT NULL AND c.firstNameNormalized IS NULL)"
+                + " OR (c.lastName IS NOT NULL AND c.lastNameNormalized IS NULL)"
+    ),
+    @NamedQuery(
+        name = "Customer.findByUsername",
+        query = "SELECT c FROM CustomerEntity c WHERE c.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")
+    ),
+    @NamedQuery(
+        name = "Customer.findIdByUsername",
+        query = "SELECT c.id FROM CustomerEntity c WHERE c.username = :username"
+    ),
+    @NamedQuery(
+        name = "Customer.findDtoById",
+        query = CustomerEntity.SELECT_DTO + " WHERE c.id = :id",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")
+    ),
+    @NamedQuery(
+        name = "Customer.findDtoByUsername",
+        query = CustomerEntity.SELECT_DTO + " WHERE c.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")
+    ),
+    @NamedQuery(
+        name = "Customer.findDtoByCustomerNumber",
+        query = CustomerEntity.SELECT_DTO + " WHERE c.customerNumber = :number",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")
+    )
+})
 public class CustomerEntity implements Serializable {
+  /**
+   * Select clause of the read queries: the customer columns as a {@code CustomerDTO}, alias {@code c}.
+   */
+  public static final String SELECT_DTO = "SELECT new net.froihofer.dsfinance.bank.dto.CustomerDTO("
+      + "c.id, c.customerNumber, c.firstName, c.lastName, c.address, c.username) FROM CustomerEntity c";
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
@@ -19,6 +65,12 @@ public class CustomerEntity implements Serializable {
 
   private String firstName;
   private String lastName;
+
+  // Search form of the names (see CustomerNames), kept in sync by the name setters
+  private String firstNameNormalized;
+
+  private String lastNameNormalized;
+
   private String address;
 
   @Column(unique = true)
@@ -35,8 +87,8 @@ public class CustomerEntity implements Serializable {
 
   public CustomerEntity(String customerNumber, String firstName, String lastName, String address) {
     this.customerNumber = customerNumber;
-    this.firstName = firstName;
-    this.lastName = lastName;
+    setFirstName(firstName);
+    setLastName(lastName);
     this.address = address;
     // Generate username from customer number
     this.username = "cust_" + customerNumber;
@@ -65,6 +117,7 @@ public class CustomerEntity implements Serializable {
 
   public void setFirstName(String firstName) {
     this.firstName = firstName;
+    this.firstNameNormalized = CustomerNames.normalize(firstName);
   }
 
   public String getLastName() {
@@ -73,6 +126,15 @@ public class CustomerEntity implements Serializable {
 
   public void setLastName(String lastName) {
     this.lastName = lastName;
+    this.lastNameNormalized = CustomerNames.normalize(lastName);
+  }
+
+  public String getFirstNameNormalized() {
+    return firstNameNormalized;
+  }
+
+  public String getLastNameNormalized() {
+    return lastNameNormalized;
   }
 
   public String getAddress() {
@@ -0,0 +1,83 @@
+package net.froihofer.dsfinance.bank.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+
+/**
+ * One search token of a customer's first or last name (see {@link CustomerNames}).
+ * The (field, token) index turns a prefix search on any part of a name into an index range scan;
+ * rows are rewritten whenever the customer's name changes.
+ */
+@Entity
+@Table(name = "CUSTOMER_NAME_TOKEN", indexes = {
+    @Index(name = "IDX_CUSTOMER_NAME_TOKEN", columnList = "name_field, token, customer_id"),
+    @Index(name = "IDX_CUSTOMER_NAME_TOKEN_CUSTOMER", columnList = "customer_id")
+})
+@NamedQueries({
+    @NamedQuery(
+        name = "CustomerNameToken.deleteByCustomerId",
+        query = "DELETE FROM CustomerNameTokenEntity t WHERE t.customerId = :customerId"
+    )
+})
+public class CustomerNameTokenEntity implements Serializable {
+    public static final String FIRST_NAME = "F";
+    public static final String LAST_NAME = "L";
+
+    // Sequence (not IDENTITY) ids, so Hibernate can batch the inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "CUSTOMER_NAME_TOKEN_SEQ")
+    @SequenceGenerator(name = "CUSTOMER_NAME_TOKEN_SEQ", sequenceName = "CUSTOMER_NAME_TOKEN_SEQ", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    // FIRST_NAME or LAST_NAME
+    @Column(name = "name_field", nullable = false, length = 1)
+    private String field;
+
+    @Column(nullable = false, length = CustomerNames.MAX_TOKEN_LENGTH)
+    private String token;
+
+    public CustomerNameTokenEntity() {
+    }
+
+    public CustomerNameTokenEntity(Long customerId, String field, String token) {
+        this.customerId = customerId;
+        this.field = field;
+        this.token = token;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
@@ -0,0 +1,53 @@
+package net.froihofer.dsfinance.bank.entity;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normal form of customer names for searching: lower case, without accents and with single
+ * spaces, e.g. "  Anna-Lena  SMITH" becomes "anna-lena smith".
+ * Search tokens are the letter/digit runs of the normal form ("anna", "lena", "smith").
+ */
+public final class CustomerNames {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Longer tokens are cut; prefixes of this length are selective enough
+    public static final int MAX_TOKEN_LENGTH = 64;
+
+    private CustomerNames() {
+    }
+
+    /**
+     * Normal form of the name, "" for a blank name and null for null.
+     */
+    public static String normalize(String name) {
+        if (name == null) return null;
+        String s = Normalizer.normalize(name, Normalizer.Form.NFD);
+        s = ACCENTS.matcher(s).replaceAll("");
+        s = SPACES.matcher(s.trim()).replaceAll(" ");
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Distinct search tokens of the name in order of appearance; empty for a blank name.
+     */
+    public static List<String> tokens(String name) {
+        String s = normalize(name);
+        if (s == null || s.isEmpty()) return List.of();
+
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String t : TOKEN_SEPARATORS.split(s)) {
+            if (t.isEmpty()) continue;
+            tokens.add(t.length() > MAX_TOKEN_LENGTH ? t.substring(0, MAX_TOKEN_LENGTH) : t);
+        }
+        return new ArrayList<>(tokens);
+    }
+}
@@ -15,6 +15,7 @@ import java.io.Serializable;
  */
 @Entity
 @Table(name = "DEPOT")
+@Cacheable
 @NamedQueries({
     @NamedQuery(
         name = "Depot.findByCustomerId",
@@ -29,7 +30,7 @@ public class DepotEntity implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     private CustomerEntity customer;
 
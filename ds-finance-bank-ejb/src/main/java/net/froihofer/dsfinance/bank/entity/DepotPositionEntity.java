@@ -14,7 +14,11 @@ import java.math.RoundingMode;
  * - Use NamedQueries to find positions for a depot
  */
 @Entity
-@Table(name = "DEPOT_POSITION")
+@Table(name = "DEPOT_POSITION",
+    // One position per stock and depot; also the index of the lookups by depot (see V2 migration)
+    uniqueConstraints = @UniqueConstraint(name = "UK_DEPOT_POSITION_DEPOT_STOCK", columnNames = {"depot_id", "stock_id"}),
+    indexes = @Index(name = "IDX_DEPOT_POSITION_STOCK", columnList = "stock_id")
+)
 @NamedQueries({
     @NamedQuery(
         name = "DepotPosition.findByDepotId",
@@ -27,6 +31,19 @@ import java.math.RoundingMode;
     @NamedQuery(
         name = "DepotPosition.findByDepotAndSymbol",
         query = "SELECT p FROM DepotPositionEntity p WHERE p.depot.id = :depotId AND p.stock.symbol = :symbol"
+    ),
+    // Read paths: one joined select of the columns the portfolio shows, no entities loaded
+    @NamedQuery(
+        name = "DepotPosition.findPortfolioByCustomerId",
+        query = "SELECT new net.froihofer.dsfinance.bank.dto.PortfolioPositionDTO("
+                + "s.symbol, s.companyName, p.quantity, p.averagePurchasePrice)"
+                + " FROM DepotPositionEntity p JOIN p.stock s"
+                + " WHERE p.depot.customer.id = :customerId ORDER BY s.symbol"
+    ),
+    @NamedQuery(
+        name = "DepotPosition.findQuantityByCustomerAndSymbol",
+        query = "SELECT p.quantity FROM DepotPositionEntity p"
+                + " WHERE p.depot.customer.id = :customerId AND p.stock.symbol = :symbol"
     )
 })
 public class DepotPositionEntity implements Serializable {
@@ -37,11 +54,11 @@ public class DepotPositionEntity implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "depot_id")
     private DepotEntity depot;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "stock_id")
     private StockEntity stock;
 
@@ -0,0 +1,125 @@
+package net.froihofer.dsfinance.bank.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * One observed stock quote (price history).
+ * Rows are only inserted, never updated; the (symbol, tradeTime) index serves
+ * latest-price, price-at-time and range lookups.
+ */
+@Entity
+@Table(name = "STOCK_QUOTE", indexes = {
+    @Index(name = "IDX_STOCK_QUOTE_SYMBOL_TIME", columnList = "symbol, tradeTime")
+})
+@NamedQueries({
+    @NamedQuery(
+        name = "Quote.findLatestBySymbol",
+        query = "SELECT q FROM QuoteEntity q WHERE q.symbol = :symbol ORDER BY q.tradeTime DESC"
+    ),
+    @NamedQuery(
+        name = "Quote.findBySymbolAtTime",
+        query = "SELECT q FROM QuoteEntity q WHERE q.symbol = :symbol AND q.tradeTime <= :time ORDER BY q.tradeTime DESC"
+    ),
+    @NamedQuery(
+        name = "Quote.findBySymbolBetween",
+        query = "SELECT q FROM QuoteEntity q WHERE q.symbol = :symbol AND q.tradeTime >= :from AND q.tradeTime < :to ORDER BY q.tradeTime"
+    )
+})
+public class QuoteEntity implements Serializable {
+    // Sequence (not IDENTITY) ids, so Hibernate can batch the inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "STOCK_QUOTE_SEQ")
+    @SequenceGenerator(name = "STOCK_QUOTE_SEQ", sequenceName = "STOCK_QUOTE_SEQ", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String symbol;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal price;
+
+    // Trade time reported by the exchange, observation time if none was reported
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date tradeTime;
+
+    private String exchange;
+
+    private Long marketCapitalization;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date observedAt;
+
+    public QuoteEntity() {
+    }
+
+    public QuoteEntity(String symbol, BigDecimal price, Date tradeTime, String exchange,
+                       Long marketCapitalization, Date observedAt) {
+        this.symbol = symbol;
+        this.price = price;
+        this.tradeTime = tradeTime;
+        this.exchange = exchange;
+        this.marketCapitalization = marketCapitalization;
+        this.observedAt = observedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Date getTradeTime() {
+        return tradeTime;
+    }
+
+    public void setTradeTime(Date tradeTime) {
+        this.tradeTime = tradeTime;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public Long getMarketCapitalization() {
+        return marketCapitalization;
+    }
+
+    public void setMarketCapitalization(Long marketCapitalization) {
+        this.marketCapitalization = marketCapitalization;
+    }
+
+    public Date getObservedAt() {
+        return observedAt;
+    }
+
+    public void setObservedAt(Date observedAt) {
+        this.observedAt = observedAt;
+    }
+}
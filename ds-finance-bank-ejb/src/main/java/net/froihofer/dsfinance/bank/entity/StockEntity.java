@@ -5,6 +5,7 @@ import java.io.Serializable;
 
 @Entity
 @Table(name = "STOCK")
+@Cacheable
 public class StockEntity implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
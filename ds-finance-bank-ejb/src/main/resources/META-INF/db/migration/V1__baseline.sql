@@ -0,0 +1,93 @@
+-- Schema as previously generated by hibernate.hbm2ddl.auto=update (H2).
+-- Everything is created only if missing, so databases that Hibernate created keep their tables and data.
+
+CREATE TABLE IF NOT EXISTS BANK (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    availableVolume NUMERIC(38,2),
+    lastUpdated TIMESTAMP(6),
+    totalInvestableVolume NUMERIC(38,2),
+    version BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS BANK_VOLUME_STRIPE (
+    id INTEGER NOT NULL,
+    availableVolume NUMERIC(38,2),
+    lastUpdated TIMESTAMP(6),
+    version BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS CUSTOMER (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    address VARCHAR(255),
+    customerNumber VARCHAR(255) NOT NULL,
+    firstName VARCHAR(255),
+    firstNameNormalized VARCHAR(255),
+    lastName VARCHAR(255),
+    lastNameNormalized VARCHAR(255),
+    username VARCHAR(255),
+    version BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_CUSTOMER_NUMBER UNIQUE (customerNumber),
+    CONSTRAINT UK_CUSTOMER_USERNAME UNIQUE (username)
+);
+
+-- Added to CUSTOMER together with the name search
+ALTER TABLE CUSTOMER ADD COLUMN IF NOT EXISTS firstNameNormalized VARCHAR(255);
+ALTER TABLE CUSTOMER ADD COLUMN IF NOT EXISTS lastNameNormalized VARCHAR(255);
+CREATE INDEX IF NOT EXISTS IDX_CUSTOMER_NAME ON CUSTOMER (lastNameNormalized, firstNameNormalized);
+
+CREATE TABLE IF NOT EXISTS CUSTOMER_NAME_TOKEN (
+    id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    name_field VARCHAR(1) NOT NULL,
+    token VARCHAR(64) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS IDX_CUSTOMER_NAME_TOKEN ON CUSTOMER_NAME_TOKEN (name_field, token, customer_id);
+CREATE INDEX IF NOT EXISTS IDX_CUSTOMER_NAME_TOKEN_CUSTOMER ON CUSTOMER_NAME_TOKEN (customer_id);
+CREATE SEQUENCE IF NOT EXISTS CUSTOMER_NAME_TOKEN_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS STOCK (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    companyName VARCHAR(255),
+    symbol VARCHAR(255) NOT NULL,
+    version BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_STOCK_SYMBOL UNIQUE (symbol)
+);
+
+CREATE TABLE IF NOT EXISTS DEPOT (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    version BIGINT,
+    customer_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_DEPOT_CUSTOMER UNIQUE (customer_id),
+    CONSTRAINT FK_DEPOT_CUSTOMER FOREIGN KEY (customer_id) REFERENCES CUSTOMER (id)
+);
+
+CREATE TABLE IF NOT EXISTS DEPOT_POSITION (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    averagePurchasePrice NUMERIC(38,2),
+    quantity INTEGER,
+    version BIGINT,
+    depot_id BIGINT,
+    stock_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT FK_DEPOT_POSITION_DEPOT FOREIGN KEY (depot_id) REFERENCES DEPOT (id),
+    CONSTRAINT FK_DEPOT_POSITION_STOCK FOREIGN KEY (stock_id) REFERENCES STOCK (id)
+);
+
+CREATE TABLE IF NOT EXISTS STOCK_QUOTE (
+    id BIGINT NOT NULL,
+    exchange VARCHAR(255),
+    marketCapitalization BIGINT,
+    observedAt TIMESTAMP(6),
+    price NUMERIC(19,4),
+    symbol VARCHAR(32) NOT NULL,
+    tradeTime TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS IDX_STOCK_QUOTE_SYMBOL_TIME ON STOCK_QUOTE (symbol, tradeTime);
+CREATE SEQUENCE IF NOT EXISTS STOCK_QUOTE_SEQ START WITH 1 INCREMENT BY 50;
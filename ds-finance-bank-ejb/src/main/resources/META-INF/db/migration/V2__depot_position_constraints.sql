@@ -0,0 +1,19 @@
+-- At most one position per stock and depot, and indexes for the position lookups of every trade
+-- and portfolio view (by depot, by depot and stock, by stock).
+
+-- Merge duplicate positions into the one with the lowest id: total quantity at the weighted average price
+UPDATE DEPOT_POSITION p SET
+    averagePurchasePrice = (SELECT SUM(d.quantity * d.averagePurchasePrice) / NULLIF(SUM(d.quantity), 0)
+                            FROM DEPOT_POSITION d WHERE d.depot_id = p.depot_id AND d.stock_id = p.stock_id),
+    quantity = (SELECT SUM(d.quantity)
+                FROM DEPOT_POSITION d WHERE d.depot_id = p.depot_id AND d.stock_id = p.stock_id)
+WHERE p.id = (SELECT MIN(d.id) FROM DEPOT_POSITION d WHERE d.depot_id = p.depot_id AND d.stock_id = p.stock_id)
+    AND EXISTS (SELECT 1 FROM DEPOT_POSITION d
+                WHERE d.depot_id = p.depot_id AND d.stock_id = p.stock_id AND d.id <> p.id);
+DELETE FROM DEPOT_POSITION p
+WHERE EXISTS (SELECT 1 FROM DEPOT_POSITION d
+              WHERE d.depot_id = p.depot_id AND d.stock_id = p.stock_id AND d.id < p.id);
+
+-- Also serves the lookups by depot alone (leading column)
+ALTER TABLE DEPOT_POSITION ADD CONSTRAINT IF NOT EXISTS UK_DEPOT_POSITION_DEPOT_STOCK UNIQUE (depot_id, stock_id);
+CREATE INDEX IF NOT EXISTS IDX_DEPOT_POSITION_STOCK ON DEPOT_POSITION (stock_id);
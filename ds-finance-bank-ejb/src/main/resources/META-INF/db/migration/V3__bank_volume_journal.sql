@@ -0,0 +1,10 @@
+-- Settled bank volume changes, written by every trade and folded into BANK_VOLUME_STRIPE by the
+-- write-behind flush, so changes that were not flushed yet survive a crash.
+
+CREATE TABLE IF NOT EXISTS BANK_VOLUME_JOURNAL (
+    id BIGINT NOT NULL,
+    amount NUMERIC(19,2) NOT NULL,
+    createdAt TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE SEQUENCE IF NOT EXISTS BANK_VOLUME_JOURNAL_SEQ START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,11 @@
+-- The bank volume is kept in the BANK row again: fold the stripe rows (the source of truth while
+-- they existed) into the first BANK row and drop the stripe table.
+
+UPDATE BANK SET
+    availableVolume = (SELECT SUM(availableVolume) FROM BANK_VOLUME_STRIPE),
+    lastUpdated = CURRENT_TIMESTAMP,
+    version = COALESCE(version, 0) + 1
+WHERE id = (SELECT MIN(id) FROM BANK)
+  AND EXISTS (SELECT 1 FROM BANK_VOLUME_STRIPE);
+
+DROP TABLE IF EXISTS BANK_VOLUME_STRIPE;
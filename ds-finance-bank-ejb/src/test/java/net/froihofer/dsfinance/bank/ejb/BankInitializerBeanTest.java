@@ -0,0 +1,71 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import net.froihofer.dsfinance.bank.entity.BankEntity;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The bank row is created once, by the first startup, and later lookups load it by the id
+ * remembered by {@link BankInitializerBean} without a query. Counted with Hibernate statistics
+ * on an in-memory H2 database.
+ */
+public class BankInitializerBeanTest {
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        emf = TestDatabase.create("bank-initializer");
+        em = emf.createEntityManager();
+        statistics = TestDatabase.statistics(emf);
+    }
+
+    @After
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Test
+    public void bankRowIsCreatedOnceAtStartup() {
+        long bankId = startup().getBankId();
+        // A redeployment finds the existing row
+        assertEquals(bankId, startup().getBankId());
+
+        assertEquals(1L, (long) TestDatabase.inTransaction(em, () ->
+                em.createQuery("SELECT COUNT(b) FROM BankEntity b", Long.class).getSingleResult()));
+        BankEntity bank = em.find(BankEntity.class, bankId);
+        assertEquals(0, new BigDecimal("1000000000").compareTo(bank.getAvailableVolume()));
+    }
+
+    @Test
+    public void lookupByRememberedIdIssuesNoQuery() {
+        BankInitializerBean bankInitializer = startup();
+
+        statistics.clear();
+        BankEntity bank = TestDatabase.inTransaction(em, () -> em.find(BankEntity.class, bankInitializer.getBankId()));
+
+        assertNotNull(bank);
+        assertEquals(0L, statistics.getQueryExecutionCount());
+        // Only the load by primary key
+        assertEquals(1L, statistics.getPrepareStatementCount());
+    }
+
+    private BankInitializerBean startup() {
+        BankInitializerBean bankInitializer = new BankInitializerBean();
+        TestBeans.inject(bankInitializer, "em", em);
+        TestDatabase.inTransaction(em, bankInitializer::init);
+        em.clear();
+        return bankInitializer;
+    }
+}
@@ -0,0 +1,77 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Journaled volume changes count towards the bank volume before and after they are folded into
+ * the bank row, and a debit beyond the whole volume is booked as a negative balance instead of
+ * failing. Runs on an in-memory H2 database.
+ */
+public class BankLedgerBeanTest {
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private BankLedgerBean ledger;
+
+    @Before
+    public void setUp() {
+        emf = TestDatabase.create("bank-ledger");
+        em = emf.createEntityManager();
+
+        BankInitializerBean bankInitializer = new BankInitializerBean();
+        TestBeans.inject(bankInitializer, "em", em);
+        TestDatabase.inTransaction(em, bankInitializer::init);
+
+        ledger = new BankLedgerBean();
+        TestBeans.inject(ledger, "em", em);
+        TestBeans.inject(ledger, "bankInitializer", bankInitializer);
+        em.clear();
+    }
+
+    @After
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Test
+    public void journalCountsBeforeAndAfterFolding() {
+        journal("-1500.00");
+        journal("200.00");
+        assertVolume("999998700.00");
+
+        assertEquals(2, (int) TestDatabase.inTransaction(em, () -> ledger.foldJournal()));
+        assertEquals(0, (int) TestDatabase.inTransaction(em, () -> ledger.foldJournal()));
+        assertVolume("999998700.00");
+    }
+
+    @Test
+    public void overdraftIsBookedAsNegativeBalance() {
+        journal("-1000000100.00");
+        TestDatabase.inTransaction(em, () -> ledger.foldJournal());
+        assertVolume("-100.00");
+
+        // A later sale covers it again
+        journal("150.00");
+        TestDatabase.inTransaction(em, () -> ledger.foldJournal());
+        assertVolume("50.00");
+    }
+
+    private void journal(String delta) {
+        TestDatabase.inTransaction(em, () -> ledger.journal(new BigDecimal(delta)));
+        em.clear();
+    }
+
+    private void assertVolume(String expected) {
+        BigDecimal volume = TestDatabase.inTransaction(em, ledger::getAvailableVolume);
+        em.clear();
+        assertEquals(0, new BigDecimal(expected).compareTo(volume));
+    }
+}
@@ -0,0 +1,116 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.entity.CustomerEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Prefix and token matching and keyset paging of the customer name search, on the token table
+ * and on the in-memory index. Runs on an in-memory H2 database.
+ */
+public class CustomerSearchBeanTest {
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private CustomerSearchBean search;
+
+    @Before
+    public void setUp() {
+        emf = TestDatabase.create("customer-search");
+        em = emf.createEntityManager();
+
+        search = new CustomerSearchBean();
+        TestBeans.inject(search, "em", em);
+        TestDatabase.inTransaction(em, () -> {
+            customer("C1", "Anna-Lena", "Smith");
+            customer("C2", "Anna", "Smithers");
+            customer("C3", "Hannah", "Smith");
+            customer("C4", "René", "O'Brien");
+        });
+        em.clear();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("customer.search.inMemoryIndex");
+        em.close();
+        emf.close();
+    }
+
+    @Test
+    public void tokenTable() {
+        TestDatabase.inTransaction(em, search::init);
+        assertMatches();
+        assertPages();
+    }
+
+    @Test
+    public void inMemoryIndex() {
+        System.setProperty("customer.search.inMemoryIndex", "true");
+        TestDatabase.inTransaction(em, search::init);
+        assertMatches();
+        assertPages();
+    }
+
+    private void assertMatches() {
+        // Prefix of any part of the name, no infix matches ("ann" does not find "Hannah")
+        assertEquals(List.of("C1", "C2"), find("ann", null));
+        assertEquals(List.of("C1"), find("lena", null));
+        assertEquals(List.of("C1"), find("ANNA lena", ""));
+        // Ordered by last name, first name
+        assertEquals(List.of("C1", "C3", "C2"), find(null, "smi"));
+        assertEquals(List.of("C1", "C3", "C2"), find(" ", "smith"));
+        assertEquals(List.of("C3"), find("h", "smith"));
+        // Accents and punctuation are ignored
+        assertEquals(List.of("C4"), find("rene", "brien"));
+        assertEquals(List.of(), find("anna", "brien"));
+        assertEquals(4, find(null, null).size());
+    }
+
+    private void assertPages() {
+        // Pages of two in id order; the next page starts after the last id of the previous one
+        List<CustomerDTO> first = page(null, null, null);
+        List<CustomerDTO> second = page(null, null, first.get(1).getId());
+        List<CustomerDTO> third = page(null, null, second.get(1).getId());
+        assertEquals(List.of("C1", "C2"), numbers(first));
+        assertEquals(List.of("C3", "C4"), numbers(second));
+        assertEquals(List.of(), numbers(third));
+
+        List<CustomerDTO> smith = page(null, "smi", null);
+        assertEquals(List.of("C1", "C2"), numbers(smith));
+        assertEquals(List.of("C3"), numbers(page(null, "smi", smith.get(1).getId())));
+
+        assertEquals(4L, (long) TestDatabase.inTransaction(em, () -> search.count(null, "")));
+        assertEquals(3L, (long) TestDatabase.inTransaction(em, () -> search.count(null, "smi")));
+        assertEquals(2L, (long) TestDatabase.inTransaction(em, () -> search.count("ann", "smith")));
+    }
+
+    private List<CustomerDTO> page(String firstName, String lastName, Long afterId) {
+        return TestDatabase.inTransaction(em, () -> search.searchPage(firstName, lastName, afterId, 2));
+    }
+
+    private List<String> numbers(List<CustomerDTO> customers) {
+        return customers.stream().map(CustomerDTO::getCustomerNumber).collect(Collectors.toList());
+    }
+
+    private List<String> find(String firstName, String lastName) {
+        return TestDatabase.inTransaction(em, () -> search.search(firstName, lastName).stream()
+                .map(CustomerDTO::getCustomerNumber)
+                .collect(Collectors.toList()));
+    }
+
+    private void customer(String number, String firstName, String lastName) {
+        CustomerEntity customer = new CustomerEntity(number, firstName, lastName, "Street");
+        em.persist(customer);
+        em.flush();
+        search.index(customer);
+    }
+}
@@ -0,0 +1,137 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.froihofer.dsfinance.bank.dto.PortfolioDTO;
+import net.froihofer.dsfinance.bank.dto.PortfolioPositionDTO;
+import net.froihofer.dsfinance.bank.dto.StockQuoteDTO;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Portfolio valuation must cost one batched quote request per portfolio, not one search per position.
+ */
+public class DepotServiceBeanTest {
+
+    private CountingTradingAdapter tradingAdapter;
+    private DepotServiceBean depotService;
+
+    @Before
+    public void setUp() {
+        tradingAdapter = new CountingTradingAdapter();
+        depotService = new DepotServiceBean();
+        TestBeans.inject(depotService, "em", positions(
+                new Object[] {"AAPL", "Apple Inc.", 10, new BigDecimal("150.00")},
+                new Object[] {"MSFT", "Microsoft Corp.", 5, new BigDecimal("300.00")},
+                new Object[] {"NVDA", "NVIDIA Corp.", 2, new BigDecimal("400.00")}));
+        TestBeans.inject(depotService, "tradingAdapter", tradingAdapter);
+        TestBeans.inject(depotService, "marketDataRefresher", new MarketDataRefresherBean());
+    }
+
+    @Test
+    public void portfolioIsPricedWithOneBatchedCall() {
+        tradingAdapter.quote("AAPL", "160.00");
+        tradingAdapter.quote("MSFT", "310.00");
+        tradingAdapter.quote("NVDA", "450.00");
+
+        PortfolioDTO portfolio = depotService.getCustomerPortfolio(1L);
+
+        assertEquals(1, tradingAdapter.batchCalls);
+        assertEquals(List.of("AAPL", "MSFT", "NVDA"), tradingAdapter.requestedSymbols.get(0));
+        assertEquals(0, tradingAdapter.searchCalls);
+        assertEquals(3, portfolio.getPositions().size());
+        // 10 * 160 + 5 * 310 + 2 * 450
+        assertEquals(0, new BigDecimal("4050.00").compareTo(portfolio.getTotalValue()));
+    }
+
+    @Test
+    public void everyPortfolioCostsOneCall() {
+        tradingAdapter.quote("AAPL", "160.00");
+        tradingAdapter.quote("MSFT", "310.00");
+        tradingAdapter.quote("NVDA", "450.00");
+
+        depotService.getCustomerPortfolio(1L);
+        depotService.getDepotPositions(1L);
+        depotService.calculateTotalValue(1L);
+
+        assertEquals(3, tradingAdapter.batchCalls);
+        assertEquals(0, tradingAdapter.searchCalls);
+    }
+
+    /**
+     * EntityManager whose portfolio query returns the given positions
+     * (symbol, company name, quantity, average purchase price) for every customer.
+     */
+    private static EntityManager positions(Object[]... rows) {
+        List<PortfolioPositionDTO> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            result.add(new PortfolioPositionDTO((String) row[0], (String) row[1], (Integer) row[2], (BigDecimal) row[3]));
+        }
+
+        Object query = Proxy.newProxyInstance(
+                DepotServiceBeanTest.class.getClassLoader(), new Class<?>[] {TypedQuery.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getResultList":
+                            return result;
+                        case "setParameter":
+                            return proxy;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return (EntityManager) Proxy.newProxyInstance(
+                DepotServiceBeanTest.class.getClassLoader(), new Class<?>[] {EntityManager.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "createNamedQuery":
+                            return query;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Serves quotes from a map and counts the calls that would reach the exchange.
+     */
+    private static final class CountingTradingAdapter extends TradingServiceAdapterBean {
+        private final Map<String, StockQuoteDTO> quotes = new LinkedHashMap<>();
+        private final List<List<String>> requestedSymbols = new ArrayList<>();
+        private int batchCalls;
+        private int searchCalls;
+
+        StockQuoteDTO quote(String symbol, String price) {
+            StockQuoteDTO q = new StockQuoteDTO(symbol, symbol, new BigDecimal(price));
+            quotes.put(symbol, q);
+            return q;
+        }
+
+        @Override
+        public Map<String, StockQuoteDTO> getStockQuotes(Collection<String> symbols, long maxAgeMs) {
+            batchCalls++;
+            requestedSymbols.add(new ArrayList<>(symbols));
+            Map<String, StockQuoteDTO> out = new LinkedHashMap<>();
+            for (String symbol : symbols) {
+                StockQuoteDTO q = quotes.get(symbol);
+                if (q != null) out.put(symbol, q);
+            }
+            return out;
+        }
+
+        @Override
+        public List<StockQuoteDTO> findStockQuotesByCompanyName(String companyNameQuery) {
+            searchCalls++;
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.froihofer.dsfinance.bank.entity.CustomerEntity;
+import net.froihofer.dsfinance.bank.entity.DepotEntity;
+import net.froihofer.dsfinance.bank.entity.DepotPositionEntity;
+import net.froihofer.dsfinance.bank.entity.StockEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Two settlements of a first buy of the same stock for the same customer, in overlapping
+ * transactions, end in one position holding both instead of a unique constraint violation.
+ * Runs on an in-memory H2 database.
+ */
+public class DepotSettlementConcurrencyTest {
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private StockDirectoryBean stockDirectory;
+    private long customerId;
+
+    @Before
+    public void setUp() {
+        emf = TestDatabase.create("depot-settlement", Map.of("jakarta.persistence.jdbc.url",
+                "jdbc:h2:mem:depot-settlement;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"));
+        em = emf.createEntityManager();
+
+        customerId = TestDatabase.inTransaction(em, () -> {
+            CustomerEntity customer = new CustomerEntity("C1", "Anna", "Smith", "Street");
+            em.persist(customer);
+            DepotEntity depot = new DepotEntity();
+            depot.setCustomer(customer);
+            customer.setDepot(depot);
+            em.persist(depot);
+            em.persist(new StockEntity("AAPL", "Apple Inc."));
+            return customer.getId();
+        });
+        em.clear();
+
+        stockDirectory = new StockDirectoryBean();
+        TestBeans.inject(stockDirectory, "em", em);
+        TestDatabase.inTransaction(em, stockDirectory::init);
+    }
+
+    @After
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Test
+    public void concurrentFirstBuysMergeIntoOnePosition() throws Exception {
+        CountDownLatch firstAdded = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> {
+                EntityManager firstEm = emf.createEntityManager();
+                EntityTransaction tx = firstEm.getTransaction();
+                tx.begin();
+                try {
+                    depotService(firstEm).addStockPosition(customerId, "AAPL", 10, new BigDecimal("100.00"));
+                    firstAdded.countDown();
+                    // Keep the new position uncommitted while the second settlement runs
+                    Thread.sleep(300);
+                    tx.commit();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    if (tx.isActive()) tx.rollback();
+                    firstEm.close();
+                }
+            });
+            Future<?> second = executor.submit(() -> {
+                EntityManager secondEm = emf.createEntityManager();
+                try {
+                    if (!firstAdded.await(10, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("First settlement did not run");
+                    }
+                    TestDatabase.inTransaction(secondEm, () -> depotService(secondEm)
+                            .addStockPosition(customerId, "aapl", 5, new BigDecimal("130.00")));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    secondEm.close();
+                }
+            });
+            first.get(20, TimeUnit.SECONDS);
+            second.get(20, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<DepotPositionEntity> positions = em.createQuery(
+                "SELECT p FROM DepotPositionEntity p", DepotPositionEntity.class).getResultList();
+        assertEquals(1, positions.size());
+        assertEquals(15, (int) positions.get(0).getQuantity());
+        // (10 * 100 + 5 * 130) / 15
+        assertEquals(0, new BigDecimal("110.00").compareTo(positions.get(0).getAveragePurchasePrice()));
+    }
+
+    private DepotServiceBean depotService(EntityManager entityManager) {
+        DepotServiceBean depotService = new DepotServiceBean();
+        TestBeans.inject(depotService, "em", entityManager);
+        TestBeans.inject(depotService, "stockDirectory", stockDirectory);
+        return depotService;
+    }
+}
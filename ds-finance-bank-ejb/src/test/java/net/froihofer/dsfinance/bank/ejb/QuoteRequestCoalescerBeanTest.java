@@ -0,0 +1,105 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A caller that joins an in-flight call fails with the owner's error instead of waiting forever,
+ * also when the owner's call throws an Error.
+ */
+public class QuoteRequestCoalescerBeanTest {
+
+    private QuoteRequestCoalescerBean coalescer;
+    private ExecutorService joiner;
+
+    @Before
+    public void setUp() {
+        coalescer = new QuoteRequestCoalescerBean();
+        joiner = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        joiner.shutdownNow();
+    }
+
+    @Test
+    public void joinerOfExecuteSeesTheOwnersError() throws Exception {
+        LinkageError error = new LinkageError("owner failed");
+        CountDownLatch ownerRunning = new CountDownLatch(1);
+        Future<Object> joined = joiner.submit(() -> {
+            ownerRunning.await();
+            return coalescer.execute("AAPL", () -> "joiner's own call");
+        });
+
+        try {
+            coalescer.execute("AAPL", () -> {
+                ownerRunning.countDown();
+                awaitJoiner();
+                throw error;
+            });
+            fail("The owner's error must be rethrown");
+        } catch (LinkageError e) {
+            assertSame(error, e);
+        }
+
+        assertJoinerFailedWith(error, joined);
+    }
+
+    @Test
+    public void joinerOfExecuteAllSeesTheOwnersError() throws Exception {
+        LinkageError error = new LinkageError("owner failed");
+        CountDownLatch ownerRunning = new CountDownLatch(1);
+        Future<Map<String, String>> joined = joiner.submit(() -> {
+            ownerRunning.await();
+            return coalescer.executeAll(List.of("AAPL"), keys -> Map.of("AAPL", "joiner's own call"));
+        });
+
+        try {
+            coalescer.<String>executeAll(List.of("AAPL", "MSFT"), keys -> {
+                ownerRunning.countDown();
+                awaitJoiner();
+                throw error;
+            });
+            fail("The owner's error must be rethrown");
+        } catch (LinkageError e) {
+            assertSame(error, e);
+        }
+
+        assertJoinerFailedWith(error, joined);
+    }
+
+    /**
+     * Blocks the owner's call until the joiner has attached to it.
+     */
+    private void awaitJoiner() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.getCoalescedCount() == 0) {
+            if (System.nanoTime() > deadline) throw new IllegalStateException("Joiner did not arrive");
+            Thread.onSpinWait();
+        }
+    }
+
+    private void assertJoinerFailedWith(Throwable error, Future<?> joined) throws Exception {
+        try {
+            joined.get(5, TimeUnit.SECONDS);
+            fail("The joiner must fail like the owner");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause().getCause());
+        }
+        assertEquals(1, coalescer.getExecutedCount());
+    }
+}
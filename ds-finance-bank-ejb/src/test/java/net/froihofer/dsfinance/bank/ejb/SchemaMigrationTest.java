@@ -0,0 +1,117 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The migration scripts build the schema the entities are mapped to, run only once, merge
+ * duplicate depot positions and make further duplicates impossible, and fold the former bank volume
+ * stripes back into the bank row. Runs on an in-memory H2 database.
+ */
+public class SchemaMigrationTest {
+
+    private static final String DATABASE = "schema-migration";
+
+    private Connection connection;
+    private SchemaMigrationBean migration;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + DATABASE + ";DB_CLOSE_DELAY=-1", "sa", "");
+        migration = new SchemaMigrationBean();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void scriptsMatchTheMapping() throws Exception {
+        assertEquals(SchemaMigrationBean.MIGRATIONS.size(),
+                migration.migrate(connection, SchemaMigrationBean.MIGRATIONS));
+        assertEquals(0, migration.migrate(connection, SchemaMigrationBean.MIGRATIONS));
+
+        // Fails to open if a mapped table, column or sequence is missing or of the wrong type
+        EntityManagerFactory emf = TestDatabase.create(DATABASE, Map.of("hibernate.hbm2ddl.auto", "validate"));
+        emf.close();
+    }
+
+    @Test
+    public void duplicatePositionsAreMergedAndRejected() throws Exception {
+        migration.migrate(connection, SchemaMigrationBean.MIGRATIONS.subList(0, 1));
+        execute("INSERT INTO CUSTOMER (id, customerNumber, version) VALUES (1, 'C1', 0)");
+        execute("INSERT INTO DEPOT (id, customer_id, version) VALUES (1, 1, 0)");
+        execute("INSERT INTO STOCK (id, symbol, version) VALUES (1, 'AAPL', 0)");
+        execute("INSERT INTO STOCK (id, symbol, version) VALUES (2, 'MSFT', 0)");
+        execute("INSERT INTO DEPOT_POSITION (id, depot_id, stock_id, quantity, averagePurchasePrice, version)"
+                + " VALUES (1, 1, 1, 10, 100.00, 0), (2, 1, 2, 5, 300.00, 0), (3, 1, 1, 30, 200.00, 0)");
+
+        assertEquals(1, migration.migrate(connection, SchemaMigrationBean.MIGRATIONS.subList(0, 2)));
+
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, quantity, averagePurchasePrice FROM DEPOT_POSITION"
+                     + " WHERE stock_id = 1")) {
+            assertTrue(rs.next());
+            assertEquals(1L, rs.getLong(1));
+            assertEquals(40, rs.getInt(2));
+            // (10 * 100 + 30 * 200) / 40
+            assertEquals(0, new BigDecimal("175.00").compareTo(rs.getBigDecimal(3)));
+            assertFalse(rs.next());
+        }
+
+        try {
+            execute("INSERT INTO DEPOT_POSITION (id, depot_id, stock_id, quantity, averagePurchasePrice, version)"
+                    + " VALUES (4, 1, 2, 1, 310.00, 0)");
+            fail("A second position of the same stock in a depot must be rejected");
+        } catch (SQLException expected) {
+            // Unique (depot, stock) constraint
+        }
+    }
+
+    @Test
+    public void volumeStripesAreFoldedIntoTheBankRow() throws Exception {
+        migration.migrate(connection, SchemaMigrationBean.MIGRATIONS.subList(0, 3));
+        execute("INSERT INTO BANK (id, availableVolume, version) VALUES (1, 1000000000.00, 0)");
+        execute("INSERT INTO BANK_VOLUME_STRIPE (id, availableVolume, version)"
+                + " VALUES (0, 999990000.00, 3), (1, -2500.00, 1)");
+
+        assertEquals(1, migration.migrate(connection, SchemaMigrationBean.MIGRATIONS.subList(0, 4)));
+
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT availableVolume, version FROM BANK")) {
+            assertTrue(rs.next());
+            assertEquals(0, new BigDecimal("999987500.00").compareTo(rs.getBigDecimal(1)));
+            assertEquals(1L, rs.getLong(2));
+        }
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+                     + " WHERE TABLE_NAME = 'BANK_VOLUME_STRIPE'")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
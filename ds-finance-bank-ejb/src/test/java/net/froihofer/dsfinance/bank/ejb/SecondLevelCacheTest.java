@@ -0,0 +1,157 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import net.froihofer.dsfinance.bank.dto.CustomerDTO;
+import net.froihofer.dsfinance.bank.entity.BankEntity;
+import net.froihofer.dsfinance.bank.entity.CustomerEntity;
+import net.froihofer.dsfinance.bank.entity.DepotEntity;
+import net.froihofer.dsfinance.bank.entity.StockEntity;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SQL statements per customer request without and with the second-level and query cache
+ * configured in persistence.xml. A request resolves the caller by username, reads the customer
+ * by id (both as DTO projections), loads the bank row and the stocks of the depot, each request in its own
+ * transaction with a fresh persistence context, as a container-managed call would.
+ * Counted with Hibernate statistics on an in-memory H2 database; JCache (Caffeine) stands in
+ * for WildFly's Infinispan.
+ */
+public class SecondLevelCacheTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SecondLevelCacheTest.class);
+
+    private static final int REQUESTS = 200;
+    private static final String USERNAME = "cust_C1";
+
+    private static final Map<String, Object> NO_CACHE = Map.of(
+            "jakarta.persistence.sharedCache.mode", "NONE",
+            "hibernate.cache.use_second_level_cache", "false",
+            "hibernate.cache.use_query_cache", "false");
+
+    private static final Map<String, Object> CACHE = Map.of(
+            "jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE",
+            "hibernate.cache.use_second_level_cache", "true",
+            "hibernate.cache.use_query_cache", "true",
+            "hibernate.cache.region.factory_class", "jcache",
+            "hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+            "hibernate.javax.cache.missing_cache_strategy", "create");
+
+    private final List<EntityManagerFactory> factories = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        factories.forEach(EntityManagerFactory::close);
+    }
+
+    @Test
+    public void cachedRequestsNeedFewerStatements() {
+        Result plain = run("l2-none", NO_CACHE);
+        Result cached = run("l2-cache", CACHE);
+
+        LOG.info("Customer request, {} requests: without cache {} statements ({} per request, {} us per request), "
+                        + "with cache {} statements ({} per request, {} us per request, {} cache hits)",
+                REQUESTS, plain.statements, plain.statements / (double) REQUESTS, plain.micros / REQUESTS,
+                cached.statements, cached.statements / (double) REQUESTS, cached.micros / REQUESTS,
+                cached.cacheHits);
+
+        assertEquals(0L, plain.cacheHits);
+        assertTrue("Cached entities and queries must be served without SQL", cached.cacheHits > 0);
+        assertTrue("The cache must save statements: " + cached.statements + " vs. " + plain.statements,
+                cached.statements < plain.statements);
+    }
+
+    private Result run(String database, Map<String, Object> properties) {
+        EntityManagerFactory emf = TestDatabase.create(database, properties);
+        factories.add(emf);
+        EntityManager em = emf.createEntityManager();
+        Statistics statistics = TestDatabase.statistics(emf);
+
+        CustomerServiceBean customerService = new CustomerServiceBean();
+        TestBeans.inject(customerService, "em", em);
+        Fixture fixture = TestDatabase.inTransaction(em, () -> Fixture.create(em));
+        em.clear();
+
+        // Warm up query plans, JIT and (where enabled) the caches
+        request(em, customerService, fixture, REQUESTS);
+
+        statistics.clear();
+        long start = System.nanoTime();
+        request(em, customerService, fixture, REQUESTS);
+        long micros = (System.nanoTime() - start) / 1_000;
+
+        Result result = new Result(statistics.getPrepareStatementCount(),
+                statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount(), micros);
+        em.close();
+        return result;
+    }
+
+    private void request(EntityManager em, CustomerServiceBean customerService, Fixture fixture, int requests) {
+        for (int i = 0; i < requests; i++) {
+            TestDatabase.inTransaction(em, () -> {
+                CustomerDTO caller = customerService.findByUsername(USERNAME);
+                assertNotNull(customerService.findById(caller.getId()));
+                assertNotNull(em.find(BankEntity.class, fixture.bankId));
+                for (Long stockId : fixture.stockIds) {
+                    assertNotNull(em.find(StockEntity.class, stockId));
+                }
+            });
+            em.clear();
+        }
+    }
+
+    private static final class Fixture {
+        private final long bankId;
+        private final List<Long> stockIds;
+
+        private Fixture(long bankId, List<Long> stockIds) {
+            this.bankId = bankId;
+            this.stockIds = stockIds;
+        }
+
+        static Fixture create(EntityManager em) {
+            BankEntity bank = new BankEntity();
+            bank.setTotalInvestableVolume(new BigDecimal("1000000000.00"));
+            bank.setAvailableVolume(new BigDecimal("1000000000.00"));
+            em.persist(bank);
+
+            CustomerEntity customer = new CustomerEntity("C1", "First", "Last", "Street");
+            DepotEntity depot = new DepotEntity();
+            depot.setCustomer(customer);
+            customer.setDepot(depot);
+            em.persist(customer);
+
+            List<Long> stockIds = new ArrayList<>();
+            for (String symbol : List.of("AAPL", "MSFT", "NVDA")) {
+                StockEntity stock = new StockEntity(symbol, symbol + " Corp.");
+                em.persist(stock);
+                stockIds.add(stock.getId());
+            }
+            return new Fixture(bank.getId(), stockIds);
+        }
+    }
+
+    private static final class Result {
+        private final long statements;
+        private final long cacheHits;
+        private final long micros;
+
+        private Result(long statements, long cacheHits, long micros) {
+            this.statements = statements;
+            this.cacheHits = cacheHits;
+            this.micros = micros;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import java.lang.reflect.Field;
+
+/**
+ * Wires beans by hand for plain JUnit tests, in place of the container's injection.
+ */
+final class TestBeans {
+
+    private TestBeans() {
+    }
+
+    /**
+     * Sets a private (injected) field of the bean, also one declared by a superclass.
+     */
+    static void inject(Object bean, String fieldName, Object value) {
+        for (Class<?> c = bean.getClass(); c != null; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(bean, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // Declared further up
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot inject " + fieldName, e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " in " + bean.getClass().getName());
+    }
+}
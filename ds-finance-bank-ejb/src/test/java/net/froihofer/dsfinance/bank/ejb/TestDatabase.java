@@ -0,0 +1,73 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * In-memory H2 database for the persistence unit {@code ds-finance-bank-test}
+ * (src/test/resources/META-INF/persistence.xml).
+ */
+final class TestDatabase {
+
+    private static final String PERSISTENCE_UNIT = "ds-finance-bank-test";
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Creates the database of the given name and opens an EntityManagerFactory on it.
+     *
+     * @param name Database name; every name is a separate database for the lifetime of the JVM
+     * @param properties Persistence unit properties to add or override
+     */
+    static EntityManagerFactory create(String name, Map<String, Object> properties) {
+        Map<String, Object> all = new HashMap<>();
+        all.put("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+        all.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        all.put("jakarta.persistence.jdbc.user", "sa");
+        all.put("jakarta.persistence.jdbc.password", "");
+        all.putAll(properties);
+        return Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, all);
+    }
+
+    static EntityManagerFactory create(String name) {
+        return create(name, Map.of());
+    }
+
+    /**
+     * Hibernate statistics of the factory (statement, entity and cache counters).
+     */
+    static Statistics statistics(EntityManagerFactory emf) {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Runs the work in a transaction of the EntityManager, as a container-managed transaction would.
+     */
+    static <T> T inTransaction(EntityManager em, Supplier<T> work) {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        try {
+            T result = work.get();
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) tx.rollback();
+            throw e;
+        }
+    }
+
+    static void inTransaction(EntityManager em, Runnable work) {
+        inTransaction(em, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
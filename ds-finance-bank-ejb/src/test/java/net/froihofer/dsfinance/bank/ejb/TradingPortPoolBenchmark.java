@@ -0,0 +1,347 @@
+package net.froihofer.dsfinance.bank.ejb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsExchange;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark, not part of the regular build: {@code mvn -pl ds-finance-bank-ejb -Pbenchmark test}.
+ *
+ * Runs the same pooled getStockQuotes workload against a local stub of the exchange's SOAP endpoint
+ * with each {@code trading.ws.*} conduit setting on and off, checks what the setting changes on the
+ * wire (connections, compressed bodies, TLS sessions) and logs calls/s per variant. Both variants get
+ * their own pool, are warmed up and then run alternately; the median of the rounds is reported.
+ * The stub answers immediately over loopback, so the numbers show client-side and connection costs,
+ * not network latency or bandwidth.
+ */
+public class TradingPortPoolBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TradingPortPoolBenchmark.class);
+
+    private static final int THREADS = 4;
+    private static final int CALLS_PER_THREAD = 100;
+    private static final int CALLS = THREADS * CALLS_PER_THREAD;
+    private static final int WARMUP_RUNS = 3;
+    private static final int ROUNDS = 7;
+    private static final List<String> SYMBOLS = List.of("AAPL", "MSFT", "NVDA");
+
+    private static final String CONTEXT = "/ds-finance/ws/TradingService";
+    private static final String KEYSTORE = "trading-stub.p12";
+    private static final String KEYSTORE_PASSWORD = "changeit";
+
+    private static final String QUOTES_RESPONSE =
+            "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                    + "<ns2:getStockQuotesResponse xmlns:ns2=\"http://ws.trading.dedisys.org/\">"
+                    + quote("AAPL", "Apple Inc.", "160.00")
+                    + quote("MSFT", "Microsoft Corp.", "310.00")
+                    + quote("NVDA", "NVIDIA Corp.", "450.00")
+                    + "</ns2:getStockQuotesResponse></soap:Body></soap:Envelope>";
+
+    private HttpServer http;
+    private HttpsServer https;
+    private ExecutorService serverThreads;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger gzippedRequests = new AtomicInteger();
+    private final AtomicInteger gzippedResponses = new AtomicInteger();
+    // Client address and port of every request, i.e. one entry per TCP connection
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    // With TLS 1.2 a resumed session keeps its id, so this counts full handshakes
+    private final Set<String> tlsSessions = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() throws Exception {
+        serverThreads = Executors.newFixedThreadPool(THREADS);
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+        http = HttpServer.create(loopback, 0);
+        http.createContext(CONTEXT, this::answer);
+        http.setExecutor(serverThreads);
+        http.start();
+
+        https = HttpsServer.create(loopback, 0);
+        https.setHttpsConfigurator(new HttpsConfigurator(serverSslContext()) {
+            @Override
+            public void configure(HttpsParameters params) {
+                SSLParameters ssl = getSSLContext().getDefaultSSLParameters();
+                ssl.setProtocols(new String[] {"TLSv1.2"});
+                params.setSSLParameters(ssl);
+            }
+        });
+        https.createContext(CONTEXT, this::answer);
+        https.setExecutor(serverThreads);
+        https.start();
+
+        // The pool trusts the stub's self-signed certificate (CN=localhost, SAN 127.0.0.1)
+        String keystore = Paths.get(getClass().getClassLoader().getResource(KEYSTORE).toURI()).toString();
+        System.setProperty("trading.ws.trustStore", keystore);
+        System.setProperty("trading.ws.trustStorePassword", KEYSTORE_PASSWORD);
+
+        System.setProperty("trading.ws.user", "bench");
+        System.setProperty("trading.ws.pass", "bench");
+        System.setProperty("trading.ws.poolSize", String.valueOf(THREADS));
+        System.setProperty("trading.ws.orderPoolSize", "1");
+    }
+
+    @After
+    public void tearDown() {
+        http.stop(0);
+        https.stop(0);
+        serverThreads.shutdownNow();
+        System.clearProperty("trading.ws.trustStore");
+        System.clearProperty("trading.ws.trustStorePassword");
+        System.clearProperty("trading.ws.user");
+        System.clearProperty("trading.ws.pass");
+        System.clearProperty("trading.ws.poolSize");
+        System.clearProperty("trading.ws.orderPoolSize");
+        System.clearProperty("trading.ws.endpoint");
+    }
+
+    @Test
+    public void keepAlive() throws Exception {
+        Variant[] v = compare("keepAlive", false,
+                Map.of("trading.ws.keepAlive", "true"), Map.of("trading.ws.keepAlive", "false"));
+
+        assertTrue("keep-alive must not open more connections than the pool has ports",
+                v[0].connections <= THREADS);
+        assertTrue("without keep-alive every call opens a new connection", v[1].connections > THREADS);
+    }
+
+    @Test
+    public void gzip() throws Exception {
+        Variant[] v = compare("gzip", false,
+                Map.of("trading.ws.gzip", "true"), Map.of("trading.ws.gzip", "false"));
+
+        assertEquals(CALLS, v[0].gzippedResponses);
+        assertEquals(0, v[1].gzippedResponses);
+    }
+
+    @Test
+    public void gzipRequests() throws Exception {
+        // A three-symbol request is far below the default threshold, so compress every request
+        Variant[] v = compare("gzipRequests", false,
+                Map.of("trading.ws.gzipRequests", "true", "trading.ws.gzipThreshold", "0"),
+                Map.of("trading.ws.gzipRequests", "false"));
+
+        assertEquals(CALLS, v[0].gzippedRequests);
+        assertEquals(0, v[1].gzippedRequests);
+    }
+
+    @Test
+    public void tlsSessionReuse() throws Exception {
+        // Keep-alive off, so every call opens a TLS connection and the session cache matters
+        Variant[] v = compare("tlsSessionReuse", true,
+                Map.of("trading.ws.keepAlive", "false", "trading.ws.tlsSessionReuse", "true"),
+                Map.of("trading.ws.keepAlive", "false", "trading.ws.tlsSessionReuse", "false"));
+
+        assertEquals("all ports resume the one shared session", 1, v[0].tlsSessions);
+        assertTrue("every port keeps its own session", v[1].tlsSessions > v[0].tlsSessions);
+    }
+
+    /**
+     * Warms up a pool per variant, runs both alternately and logs the medians.
+     *
+     * @return The "on" and the "off" variant
+     */
+    private Variant[] compare(String setting, boolean tls, Map<String, String> onProperties,
+                              Map<String, String> offProperties) throws Exception {
+        Variant on = new Variant(setting + " on", pool(tls, onProperties));
+        Variant off = new Variant(setting + " off", pool(tls, offProperties));
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(on.pool);
+            run(off.pool);
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            // Alternate the order so neither variant always runs on a warmer JVM
+            Variant first = (round % 2 == 0) ? on : off;
+            first.measure();
+            (first == on ? off : on).measure();
+        }
+
+        on.log();
+        off.log();
+        LOG.info("{}: on/off = {}", setting, String.format(Locale.ROOT, "%.2f", on.median() / off.median()));
+        return new Variant[] {on, off};
+    }
+
+    /**
+     * New pool configured with the given properties; all ports are created (and configured) by init.
+     */
+    private TradingPortPoolBean pool(boolean tls, Map<String, String> properties) {
+        HttpServer server = tls ? https : http;
+        String host = tls ? "https://127.0.0.1:" : "http://127.0.0.1:";
+        System.setProperty("trading.ws.endpoint", host + server.getAddress().getPort() + CONTEXT);
+        properties.forEach(System::setProperty);
+        try {
+            TradingPortPoolBean pool = new TradingPortPoolBean();
+            pool.init();
+            return pool;
+        } finally {
+            properties.keySet().forEach(System::clearProperty);
+        }
+    }
+
+    private void run(TradingPortPoolBean pool) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(threads.submit(() -> {
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        assertEquals(SYMBOLS.size(), pool.quotes().execute(p -> p.getStockQuotes(SYMBOLS)).size());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private void reset() {
+        requests.set(0);
+        gzippedRequests.set(0);
+        gzippedResponses.set(0);
+        connections.clear();
+        tlsSessions.clear();
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        boolean gzipIn = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+        try (InputStream in = gzipIn
+                ? new GZIPInputStream(exchange.getRequestBody())
+                : exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        requests.incrementAndGet();
+        if (gzipIn) gzippedRequests.incrementAndGet();
+        connections.add(exchange.getRemoteAddress());
+        if (exchange instanceof HttpsExchange) {
+            tlsSessions.add(new BigInteger(1, ((HttpsExchange) exchange).getSSLSession().getId()).toString(16));
+        }
+
+        byte[] body = QUOTES_RESPONSE.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(body);
+            }
+            body = buffer.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            gzippedResponses.incrementAndGet();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private SSLContext serverSslContext() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(KEYSTORE)) {
+            keyStore.load(in, KEYSTORE_PASSWORD.toCharArray());
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(kmf.getKeyManagers(), null, null);
+        return ctx;
+    }
+
+    private static String quote(String symbol, String companyName, String price) {
+        return "<return><companyName>" + companyName + "</companyName>"
+                + "<lastTradePrice>" + price + "</lastTradePrice>"
+                + "<stockExchange>NASDAQ</stockExchange>"
+                + "<symbol>" + symbol + "</symbol></return>";
+    }
+
+    /**
+     * One configuration: its pool, calls/s of every measured run and the wire counters of the last run.
+     */
+    private final class Variant {
+        private final String name;
+        private final TradingPortPoolBean pool;
+        private final List<Double> callsPerSecond = new ArrayList<>();
+        private int connections;
+        private int gzippedRequests;
+        private int gzippedResponses;
+        private int tlsSessions;
+
+        private Variant(String name, TradingPortPoolBean pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        private void measure() throws Exception {
+            reset();
+            long start = System.nanoTime();
+            run(pool);
+            long elapsed = System.nanoTime() - start;
+
+            assertEquals(CALLS, requests.get());
+            assertEquals(0, pool.quotes().getCheckoutTimeoutCount());
+            callsPerSecond.add(CALLS / (elapsed / 1_000_000_000d));
+            connections = TradingPortPoolBenchmark.this.connections.size();
+            gzippedRequests = TradingPortPoolBenchmark.this.gzippedRequests.get();
+            gzippedResponses = TradingPortPoolBenchmark.this.gzippedResponses.get();
+            tlsSessions = TradingPortPoolBenchmark.this.tlsSessions.size();
+        }
+
+        private double median() {
+            List<Double> sorted = new ArrayList<>(callsPerSecond);
+            Collections.sort(sorted);
+            return sorted.get(sorted.size() / 2);
+        }
+
+        private void log() {
+            LOG.info("{} ({} threads x {} calls, pool size {}): median {} calls/s over {} runs (min {}, max {}),"
+                            + " {} connections, {} TLS sessions per run",
+                    name, THREADS, CALLS_PER_THREAD, pool.quotes().getSize(), Math.round(median()), ROUNDS,
+                    Math.round(Collections.min(callsPerSecond)), Math.round(Collections.max(callsPerSecond)),
+                    connections, tlsSessions);
+        }
+    }
+}